@@ -1,27 +1,64 @@
 package com.market.config;
 
+import com.market.service.AuthenticatedUser;
 import com.market.service.JwtService;
+import com.market.service.TokenRevocationService;
+import com.market.service.TokenVersionCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.stereotype.Component;
+import org.springframework.util.function.SingletonSupplier;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
+    /**
+     * Public reads, where most requests never look at the caller: authentication is
+     * deferred until something reads the security context. Every other route
+     * resolves the token up front.
+     */
+    private static final RequestMatcher LAZY_ROUTES = new OrRequestMatcher(
+            antMatcher(HttpMethod.GET, "/search/**"),
+            antMatcher(HttpMethod.GET, "/public/**"),
+            antMatcher(HttpMethod.GET, "/files/fetch/**"),
+            antMatcher(HttpMethod.GET, "/shops/**"),
+            antMatcher(HttpMethod.GET, "/items/**"),
+            antMatcher(HttpMethod.GET, "/towns/**"),
+            antMatcher(HttpMethod.GET, "/categories/**")
+    );
+
     @Autowired
     JwtService jwtService;
+    @Autowired
+    TokenVersionCache tokenVersionCache;
+    @Autowired
+    TokenRevocationService tokenRevocationService;
 
     private final UserDetailsService userDetailsService;
 
@@ -42,38 +79,79 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String userPhone;
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")
+                || SecurityContextHolder.getContext().getAuthentication() != null) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
-        userPhone = jwtService.extractUsername(jwt);
+        final String jwt = authHeader.substring(7);
+
+        if (LAZY_ROUTES.matches(request)) {
+            // Resolved on first read of the security context; a permitted read that never
+            // asks for the user skips token verification and lookups entirely
+            Supplier<SecurityContext> previous = SecurityContextHolder.getDeferredContext();
+            SecurityContextHolder.setDeferredContext(SingletonSupplier.of(() -> {
+                Authentication authentication = resolve(jwt, request);
+                if (authentication == null) {
+                    return previous.get();
+                }
+                SecurityContext resolved = SecurityContextHolder.createEmptyContext();
+                resolved.setAuthentication(authentication);
+                return resolved;
+            }));
+        } else {
+            Authentication authentication = resolve(jwt, request);
+            if (authentication != null) {
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        }
 
-        if (userPhone != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            try {
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * @return The authentication for the token, or null if it is invalid, expired or revoked
+     */
+    private Authentication resolve(String jwt, HttpServletRequest request) {
+        try {
+            // Verified once; the principal comes from the claims, without loading the user
+            AuthenticatedUser principal = jwtService.extractAuthenticatedUser(jwt);
+            if (principal != null) {
+                if (tokenVersionCache.isCurrent(principal.getId(), principal.getTokenVersion())
+                        && !tokenRevocationService.isRevoked(jwtService.extractTokenId(jwt))) {
+                    return authenticate(principal, principal.getAuthorities(), request);
+                }
+                return null;
+            }
+
+            // Tokens issued before the principal claims: authenticate against the user record
+            String userPhone = jwtService.extractUsername(jwt);
+            if (userPhone != null) {
                 UserDetails userDetails = this.userDetailsService.loadUserByUsername(userPhone);
 
                 if (jwtService.isTokenValid(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
-                    authToken.setDetails(
-                            new WebAuthenticationDetailsSource().buildDetails(request)
-                    );
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                    return authenticate(userDetails, userDetails.getAuthorities(), request);
                 }
-            } catch (Exception e) {
-                // Log the error but don't block the request
-                System.err.println("JWT Authentication failed: " + e.getMessage());
             }
+        } catch (Exception e) {
+            // Log the error but don't block the request
+            logger.warn("JWT authentication failed: {}", e.getMessage());
         }
+        return null;
+    }
 
-        filterChain.doFilter(request, response);
+    private Authentication authenticate(Object principal, Collection<? extends GrantedAuthority> authorities,
+                              HttpServletRequest request) {
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                principal,
+                null,
+                authorities
+        );
+        authToken.setDetails(
+                new WebAuthenticationDetailsSource().buildDetails(request)
+        );
+        return authToken;
     }
 }
@@ -0,0 +1,124 @@
+package com.market.config;
+
+import com.market.exception.RateLimitExceededException;
+import com.market.exception.ServiceBusyException;
+import com.market.service.AdaptiveConcurrencyLimiter;
+import com.market.service.AuthenticatedUser;
+import com.market.service.JwtService;
+import com.market.service.RateLimiter;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies one route group's limits: a token bucket per client IP and one per
+ * signed-in user (both must have a token), then, for database-bound groups, the
+ * shared {@link AdaptiveConcurrencyLimiter}. Over the rate limit the request is
+ * answered 429, over the concurrency limit 503, both with Retry-After.
+ * <p>
+ * The user comes from the bearer token, verified through {@link JwtService}, so
+ * every token of one user draws on the same bucket. The security context is not
+ * read: that would also run the revocation and token version checks that
+ * JwtAuthenticationFilter defers on public reads. The IP bucket is taken first,
+ * so a client sending forged tokens pays for their verification only within it.
+ * <p>
+ * Rejections are counted in http.ratelimit.rejected, tagged with the group and
+ * the bucket (ip or user) that ran out.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private static final String ADMITTED_AT = RateLimitInterceptor.class.getName() + ".ADMITTED_AT";
+    private static final String BEARER = "Bearer ";
+
+    private final RateLimiter limiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final JwtService jwtService;
+    private final Counter ipRejected;
+    private final Counter userRejected;
+
+    /**
+     * @param concurrencyLimiter Null for groups that are not database-bound
+     */
+    public RateLimitInterceptor(String group, RateLimiter limiter, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                JwtService jwtService, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.jwtService = jwtService;
+        this.ipRejected = rejectedCounter(meterRegistry, group, "ip");
+        this.userRejected = rejectedCounter(meterRegistry, group, "user");
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        // Behind a proxy this is the proxy unless server.forward-headers-strategy is set
+        checkBucket("ip:" + request.getRemoteAddr(), ipRejected);
+        String user = verifiedUser(request);
+        if (user != null) {
+            checkBucket(user, userRejected);
+        }
+
+        if (concurrencyLimiter != null) {
+            if (!concurrencyLimiter.tryAcquire()) {
+                throw new ServiceBusyException("Server is busy, please retry shortly", 1);
+            }
+            request.setAttribute(ADMITTED_AT, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                @NonNull Object handler, Exception ex) {
+        Object admittedAt = request.getAttribute(ADMITTED_AT);
+        if (admittedAt != null) {
+            request.removeAttribute(ADMITTED_AT);
+            concurrencyLimiter.release((Long) admittedAt);
+        }
+    }
+
+    private void checkBucket(String key, Counter rejected) {
+        long waitNanos = limiter.tryAcquire(key);
+        if (waitNanos > 0) {
+            rejected.increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            throw new RateLimitExceededException("Too many requests, please slow down", retryAfterSeconds);
+        }
+    }
+
+    /**
+     * @return The bucket key of the user the bearer token was issued to, or null
+     * without a token or when it is malformed, badly signed or expired
+     */
+    private String verifiedUser(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        if (header == null || !header.startsWith(BEARER)) {
+            return null;
+        }
+        String token = header.substring(BEARER.length());
+        try {
+            AuthenticatedUser principal = jwtService.extractAuthenticatedUser(token);
+            if (principal != null) {
+                return "user:" + principal.getId();
+            }
+            // Tokens issued before the principal claims only name the user by phone
+            return "user-phone:" + jwtService.extractUsername(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String group, String bucket) {
+        return Counter.builder("http.ratelimit.rejected")
+                .tag("group", group)
+                .tag("bucket", bucket)
+                .description("Requests rejected by the rate limiter")
+                .register(meterRegistry);
+    }
+}
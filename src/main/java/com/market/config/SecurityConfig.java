@@ -37,7 +37,13 @@ public class SecurityConfig {
                                 // Allow authentication endpoints
                                 .requestMatchers("/auth/**").permitAll()
 
-                                // Require authentication for all GET, POST, PUT, DELETE operations
+                                // Operational endpoints: health is public, metrics are admin-only
+                                .requestMatchers("/actuator/health").permitAll()
+                                .requestMatchers("/actuator/**").hasRole("ADMIN")
+
+                                // Require authentication for all GET, POST, PUT, DELETE operations.
+                                // On public catalog reads the token is only resolved if the
+                                // request reads the current user (see JwtAuthenticationFilter)
                                 .requestMatchers(HttpMethod.GET).permitAll()
                                 .requestMatchers(HttpMethod.POST).authenticated()
                                 .requestMatchers(HttpMethod.PUT).authenticated()
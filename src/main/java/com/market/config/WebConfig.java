@@ -0,0 +1,77 @@
+package com.market.config;
+
+import com.market.service.AdaptiveConcurrencyLimiter;
+import com.market.service.JwtService;
+import com.market.service.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Rate limits per route group. The expensive searches (free text, facets, id
+ * lists) get a small allowance, the rest of /search a larger one; both share the
+ * adaptive concurrency limit since they compete for the same connections.
+ * Uploads are limited by rate only.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private static final String[] HEAVY_SEARCH_PATHS = {
+            "/search/items-advanced",
+            "/search/items-advanced-scroll",
+            "/search/items-by-ids-list",
+            "/search/items-facets",
+            "/search/items-fuzzy",
+            "/search/shops-fuzzy"
+    };
+
+    @Autowired
+    AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    JwtService jwtService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${rate-limit.max-keys:100000}")
+    long maxKeys;
+
+    @Value("${rate-limit.search-heavy.capacity:30}")
+    int heavySearchCapacity;
+
+    @Value("${rate-limit.search-heavy.refill-per-second:5}")
+    double heavySearchRefill;
+
+    @Value("${rate-limit.search.capacity:60}")
+    int searchCapacity;
+
+    @Value("${rate-limit.search.refill-per-second:20}")
+    double searchRefill;
+
+    @Value("${rate-limit.upload.capacity:10}")
+    int uploadCapacity;
+
+    @Value("${rate-limit.upload.refill-per-second:0.2}")
+    double uploadRefill;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor("search-heavy", heavySearchCapacity, heavySearchRefill, concurrencyLimiter))
+                .addPathPatterns(HEAVY_SEARCH_PATHS);
+        registry.addInterceptor(interceptor("search", searchCapacity, searchRefill, concurrencyLimiter))
+                .addPathPatterns("/search/**")
+                .excludePathPatterns(HEAVY_SEARCH_PATHS);
+        registry.addInterceptor(interceptor("upload", uploadCapacity, uploadRefill, null))
+                .addPathPatterns("/files/upload/**");
+    }
+
+    private RateLimitInterceptor interceptor(String group, int capacity, double refillPerSecond,
+                                             AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        return new RateLimitInterceptor(group, new RateLimiter(capacity, refillPerSecond, maxKeys),
+                concurrencyLimiter, jwtService, meterRegistry);
+    }
+}
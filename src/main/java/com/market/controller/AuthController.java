@@ -34,10 +34,14 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Revokes the presented token server-side; the client should still discard it.
+     */
     @PostMapping("/logout")
-    public ResponseEntity<String> logout() {
-        // Since we're using stateless JWT tokens, logout is handled client-side
-        // by removing the token from client storage
+    public ResponseEntity<String> logout(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            authService.logout(authorization.substring(7));
+        }
         return ResponseEntity.ok("Logged out successfully");
     }
 }
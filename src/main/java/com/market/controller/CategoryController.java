@@ -4,14 +4,17 @@ import com.market.dto.CategoryRequest;
 import com.market.model.Category;
 import com.market.service.AuthenticationService;
 import com.market.service.CategoryService;
+import com.market.service.ReferenceDataService;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/categories")
@@ -20,10 +23,13 @@ public class CategoryController {
     private static final Logger logger = LoggerFactory.getLogger(CategoryController.class);
     private final CategoryService categoryService;
     private final AuthenticationService authenticationService;
+    private final ReferenceDataService referenceDataService;
 
-    public CategoryController(CategoryService categoryService, AuthenticationService authenticationService) {
+    public CategoryController(CategoryService categoryService, AuthenticationService authenticationService,
+                              ReferenceDataService referenceDataService) {
         this.categoryService = categoryService;
         this.authenticationService = authenticationService;
+        this.referenceDataService = referenceDataService;
     }
 
     @PostMapping
@@ -39,25 +45,39 @@ public class CategoryController {
         return ResponseEntity.ok(createdCategory);
     }
 
+    // Reads are served from the reference snapshot and tagged with its version
+
     @GetMapping("/{id}")
-    public ResponseEntity<Category> getCategory(@PathVariable Long id) {
-        Category category = categoryService.getCategoryById(id);
-        return ResponseEntity.ok(category);
+    public ResponseEntity<Category> getCategory(@PathVariable Long id, WebRequest webRequest) {
+        String etag = referenceDataService.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        Category category = categoryService.getCategory(id);
+        return ResponseEntity.ok().eTag(etag).body(category);
     }
 
     @GetMapping("/code/{code}")
-    public ResponseEntity<Category> getCategoryByCode(@PathVariable String code) {
+    public ResponseEntity<Category> getCategoryByCode(@PathVariable String code, WebRequest webRequest) {
+        String etag = referenceDataService.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         Category category = categoryService.getCategoryByCode(code);
         if (category == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(category);
+        return ResponseEntity.ok().eTag(etag).body(category);
     }
 
     @GetMapping
-    public ResponseEntity<Page<Category>> getAllCategories(Pageable pageable) {
+    public ResponseEntity<Page<Category>> getAllCategories(Pageable pageable, WebRequest webRequest) {
+        String etag = referenceDataService.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         Page<Category> categories = categoryService.getAllCategories(pageable);
-        return ResponseEntity.ok(categories);
+        return ResponseEntity.ok().eTag(etag).body(categories);
     }
 
 
@@ -0,0 +1,46 @@
+package com.market.controller;
+
+import com.market.projection.VersionStamp;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET for read endpoints that are not served from {@link com.market.service.ShopPageCache}.
+ * <p>
+ * The ETag and Last-Modified are computed from {@link VersionStamp}s (an entity's
+ * updatedAt, or count plus max(updatedAt) of the rows a listing draws from)
+ * before the body is loaded, so a client revalidating an unchanged resource gets
+ * a 304 without the listing query or serialization.
+ */
+final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * @param scope  Kind of resource, plus any in-process version the body also depends on
+     * @param body   Loads the body; only called when the response is not a 304
+     * @param stamps Versions of everything rendered in the body
+     */
+    static <T> ResponseEntity<T> respond(WebRequest webRequest, String scope, Supplier<T> body, VersionStamp... stamps) {
+        StringBuilder tag = new StringBuilder("\"").append(scope);
+        long lastModified = -1;
+        for (VersionStamp stamp : stamps) {
+            tag.append('-').append(stamp.getTag());
+            lastModified = Math.max(lastModified, stamp.getLastModified());
+        }
+        String etag = tag.append('"').toString();
+        // Last-Modified only has second precision; clients sending both validators are judged on the ETag
+        if (webRequest.checkNotModified(etag, lastModified > 0 ? lastModified : -1)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+        if (lastModified > 0) {
+            response.lastModified(lastModified);
+        }
+        return response.body(body.get());
+    }
+}
@@ -2,8 +2,11 @@ package com.market.controller;
 
 import com.market.dto.ItemRequest;
 import com.market.model.*;
+import com.market.projection.VersionStamp;
 import com.market.service.ItemService;
+import com.market.service.ReferenceDataService;
 import com.market.service.AuthenticationService;
+import com.market.service.ShopPageCache;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -12,6 +15,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/items")
@@ -22,6 +26,10 @@ public class ItemController {
     ItemService itemService;
     @Autowired
     AuthenticationService authenticationService;
+    @Autowired
+    ShopPageCache shopPageCache;
+    @Autowired
+    ReferenceDataService referenceDataService;
 
 
     @PostMapping()
@@ -61,14 +69,18 @@ public class ItemController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Item> getItem(@PathVariable Long id) {
+    public ResponseEntity<Item> getItem(@PathVariable Long id, WebRequest webRequest) {
         Item item = itemService.getItemById(id);
-        return ResponseEntity.ok(item);
+        // The nested shop is rendered too; its version is read without loading it
+        String scope = item.getShop() == null ? "item" : "item-" + shopPageCache.version(item.getShop().getId());
+        return ConditionalRequests.respond(webRequest, scope, () -> item, VersionStamp.of(item));
     }
 
     @GetMapping
-    public ResponseEntity<?> getAllItems(Pageable pageable) {
-        return ResponseEntity.ok(itemService.getAllItems(pageable));
+    public ResponseEntity<?> getAllItems(Pageable pageable, WebRequest webRequest) {
+        // Town and category names of the nested shops change with the reference snapshot
+        return ConditionalRequests.respond(webRequest, "items-" + referenceDataService.snapshot().getVersion(),
+                () -> itemService.getAllItems(pageable), itemService.getAllItemsVersion());
     }
 
     @PutMapping("/{id}")
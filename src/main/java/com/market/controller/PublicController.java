@@ -1,37 +1,39 @@
 package com.market.controller;
 
-import com.market.repository.ParameterRepository;
-import com.market.setup.Setup;
+import com.market.service.ParameterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.util.StringUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-
-import java.util.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/public")
 public class PublicController {
 
     @Autowired
-    ParameterRepository parameterRepository;
+    ParameterRegistry parameterRegistry;
 
+    /**
+     * Pre-rendered from the parameter snapshot. Clients revalidate with
+     * If-None-Match and get a 304 while the parameters are unchanged.
+     */
     @GetMapping("/initial-info")
-    public HashMap<String, Object> getInitInfo() {
-        HashMap<String, Object> info = new HashMap<>();
-        parameterRepository.findByCodeIn(Arrays.asList(Setup.Parameter.BASE_URL,
-                        Setup.Parameter.IMAGE_BASE_URL,
-                        Setup.Parameter.CHECK_AFTER,
-                        Setup.Parameter.NOTIFICATION_ALARM,
-                        Setup.Parameter.ITEM_IMAGE_NUMBER,
-                        Setup.Parameter.WHATSAPP_ICON_DISPLAY))
-                .stream()
-                .filter(Objects::nonNull)
-                .filter(p -> StringUtils.hasText(p.getValue()))
-                .forEach(p -> info.put(p.getCode(), p.getValue()));
-
-        return info;
+    public ResponseEntity<byte[]> getInitInfo(WebRequest webRequest) {
+        ParameterRegistry.Snapshot snapshot = parameterRegistry.snapshot();
+        String etag = snapshot.getInitialInfoEtag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getInitialInfoJson());
     }
 
 }
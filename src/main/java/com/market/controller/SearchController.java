@@ -1,13 +1,21 @@
 package com.market.controller;
 
+import com.market.dto.CursorPage;
+import com.market.dto.ItemFacets;
 import com.market.model.*;
 import com.market.projection.ItemProjection;
+import com.market.search.Suggestion;
+import com.market.search.SuggestionType;
 import com.market.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Arrays;
 import java.util.List;
@@ -16,6 +24,9 @@ import java.util.stream.Collectors;
 @RestController
 @RequestMapping("/search")
 public class SearchController {
+    private static final String MODE_FULLTEXT = "fulltext";
+    private static final String MODE_PREFIX = "prefix";
+
     @Autowired
     UserService userService;
     @Autowired
@@ -26,6 +37,25 @@ public class SearchController {
     ShopService shopService;
     @Autowired
     ItemService itemService;
+    @Autowired
+    SuggestionService suggestionService;
+    @Autowired
+    ShopPageCache shopPageCache;
+    @Autowired
+    ReferenceDataService referenceDataService;
+
+    /**
+     * Typeahead over town, category, shop or item names, most popular first.
+     *
+     * @param type One of town, category, shop, item
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Suggestion>> suggest(
+            @RequestParam String type,
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(suggestionService.suggest(SuggestionType.fromParameter(type), prefix, limit));
+    }
 
     /**
      * USERS
@@ -43,16 +73,36 @@ public class SearchController {
      * TOWNS
      **/
     @GetMapping("/towns")
-    public ResponseEntity<Page<Town>> searchTowns(@RequestParam String name, Pageable pageable) {
-        return ResponseEntity.ok(townService.getTownByContainingName(name, pageable));
+    public ResponseEntity<Page<Town>> searchTowns(@RequestParam String name,
+                                                  @RequestParam(required = false) String mode,
+                                                  Pageable pageable,
+                                                  WebRequest webRequest) {
+        String etag = referenceDataService.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        if (MODE_PREFIX.equalsIgnoreCase(mode)) {
+            return ResponseEntity.ok().eTag(etag).body(townService.getTownsByNamePrefix(name, pageable));
+        }
+        return ResponseEntity.ok().eTag(etag).body(townService.getTownByContainingName(name, pageable));
     }
 
     /**
      * CATEGORIES
      **/
     @GetMapping("/categories")
-    public ResponseEntity<Page<Category>> searchCategories(@RequestParam String name, Pageable pageable) {
-        return ResponseEntity.ok(categoryService.getCategoryByContainingName(name, pageable));
+    public ResponseEntity<Page<Category>> searchCategories(@RequestParam String name,
+                                                           @RequestParam(required = false) String mode,
+                                                           Pageable pageable,
+                                                           WebRequest webRequest) {
+        String etag = referenceDataService.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        if (MODE_PREFIX.equalsIgnoreCase(mode)) {
+            return ResponseEntity.ok().eTag(etag).body(categoryService.getCategoriesByNamePrefix(name, pageable));
+        }
+        return ResponseEntity.ok().eTag(etag).body(categoryService.getCategoryByContainingName(name, pageable));
     }
 
     /**
@@ -62,50 +112,121 @@ public class SearchController {
     @GetMapping("/shop-by-owner/{ownerId}")
     public ResponseEntity<Page<Shop>> getShopsByOwner(
             @PathVariable Long ownerId,
-            Pageable pageable) {
-        Page<Shop> shops = shopService.getShopsByOwner(ownerId, pageable);
-        return ResponseEntity.ok(shops);
+            Pageable pageable,
+            WebRequest webRequest) {
+        return ConditionalRequests.respond(webRequest, shopsScope(),
+                () -> shopService.getShopsByOwner(ownerId, pageable), shopService.getShopsByOwnerVersion(ownerId));
     }
 
     @GetMapping("/active-shop-by-category-and-town/{townId}/{categoryId}")
-    public ResponseEntity<Page<Shop>> getActiveShopsByCategoryAndTown(
+    public ResponseEntity<Slice<Shop>> getActiveShopsByCategoryAndTown(
             @PathVariable Long townId,
             @PathVariable Long categoryId,
-            Pageable pageable) {
-        Page<Shop> shops = shopService.getActiveShopsByCategoryAndTown(townId, categoryId, pageable);
-        return ResponseEntity.ok(shops);
+            @RequestParam(defaultValue = "true") boolean withTotal,
+            Pageable pageable,
+            WebRequest webRequest) {
+        return ConditionalRequests.respond(webRequest, shopsScope(),
+                () -> shopService.getActiveShopsByCategoryAndTown(townId, categoryId, pageable, withTotal),
+                shopService.getActiveShopsByCategoryAndTownVersion(townId, categoryId));
+    }
+
+    @GetMapping("/active-shop-by-category-and-town-scroll/{townId}/{categoryId}")
+    public ResponseEntity<CursorPage<Shop>> scrollActiveShopsByCategoryAndTown(
+            @PathVariable Long townId,
+            @PathVariable Long categoryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(shopService.scrollActiveShopsByCategoryAndTown(townId, categoryId, cursor, CursorPage.clampSize(size)));
     }
 
     /*************************************************/
 
+    /**
+     * Typo-tolerant shop name search, best match first.
+     */
+    @GetMapping("/shops-fuzzy")
+    public ResponseEntity<List<Shop>> searchShopsFuzzy(
+            @RequestParam String name,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(shopService.searchShopsFuzzy(name, CursorPage.clampSize(size)));
+    }
+
     @GetMapping("/shop-by-town/{townId}")
-    public ResponseEntity<Page<Shop>> getShopsByTown(
+    public ResponseEntity<Slice<Shop>> getShopsByTown(
             @PathVariable Long townId,
-            Pageable pageable) {
-        Page<Shop> shops = shopService.getShopsByTown(townId, pageable);
-        return ResponseEntity.ok(shops);
+            @RequestParam(defaultValue = "true") boolean withTotal,
+            Pageable pageable,
+            WebRequest webRequest) {
+        return ConditionalRequests.respond(webRequest, shopsScope(),
+                () -> shopService.getShopsByTown(townId, pageable, withTotal), shopService.getShopsByTownVersion(townId));
     }
 
     @GetMapping("/shop-by-category/{categoryId}")
-    public ResponseEntity<Page<Shop>> getShopsByCategory(
+    public ResponseEntity<Slice<Shop>> getShopsByCategory(
             @PathVariable Long categoryId,
-            Pageable pageable) {
-        Page<Shop> shops = shopService.getShopsByCategory(categoryId, pageable);
-        return ResponseEntity.ok(shops);
+            @RequestParam(defaultValue = "true") boolean withTotal,
+            Pageable pageable,
+            WebRequest webRequest) {
+        return ConditionalRequests.respond(webRequest, shopsScope(),
+                () -> shopService.getShopsByCategory(categoryId, pageable, withTotal),
+                shopService.getShopsByCategoryVersion(categoryId));
+    }
+
+    @GetMapping("/shop-by-town-scroll/{townId}")
+    public ResponseEntity<CursorPage<Shop>> scrollShopsByTown(
+            @PathVariable Long townId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(shopService.scrollShopsByTown(townId, cursor, CursorPage.clampSize(size)));
+    }
+
+    @GetMapping("/shop-by-category-scroll/{categoryId}")
+    public ResponseEntity<CursorPage<Shop>> scrollShopsByCategory(
+            @PathVariable Long categoryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(shopService.scrollShopsByCategory(categoryId, cursor, CursorPage.clampSize(size)));
     }
 
     /**
      * ITEMS
      **/
 
+    /**
+     * Served pre-serialized per shop version, with the version as a strong ETag.
+     */
     @GetMapping("/items-by-shop/{shopId}")
-    public ResponseEntity<?> getAvailableItemsByShop(
+    public ResponseEntity<byte[]> getAvailableItemsByShop(
             @PathVariable Long shopId,
-            Pageable pageable) {
-        Page<ItemProjection> items = itemService.getAvailableItemsByShop(shopId, pageable);
-        return ResponseEntity.ok(items);
+            @RequestParam(defaultValue = "true") boolean withTotal,
+            Pageable pageable,
+            WebRequest webRequest) {
+        String etag = shopPageCache.etag(shopId);
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        String part = "items|" + pageable.getOffset() + "|" + pageable.getPageSize() + "|" + pageable.getSort() + "|" + withTotal;
+        byte[] body = shopPageCache.body(etag, part, () -> itemService.getAvailableItemsByShop(shopId, pageable, withTotal));
+        return ResponseEntity.ok().eTag(etag).contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
+    @GetMapping("/items-by-shop-scroll/{shopId}")
+    public ResponseEntity<CursorPage<ItemProjection>> scrollAvailableItemsByShop(
+            @PathVariable Long shopId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(itemService.scrollAvailableItemsByShop(shopId, cursor, CursorPage.clampSize(size)));
+    }
+
+    /**
+     * Filtered item search. name and description match whole words by their
+     * start, case- and accent-insensitively: every word of the query must begin
+     * a word of the field, so name=phone finds "Phone case" but not "iPhone".
+     * Earlier versions matched anywhere in the field. mode=prefix instead
+     * requires the whole name to start with the query, and mode=fulltext ranks
+     * by MySQL FULLTEXT relevance. /items-advanced-scroll and /items-facets use
+     * the same matching.
+     */
     @GetMapping("/items-advanced")
     public ResponseEntity<?> searchItemsAdvanced(
             @RequestParam(required = false) String name,
@@ -114,12 +235,67 @@ public class SearchController {
             @RequestParam(required = false) Double maxPrice,
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) Long townId,
+            @RequestParam(required = false) String mode,
+            @RequestParam(defaultValue = "true") boolean withTotal,
             Pageable pageable
     ) {
-        Page<ItemProjection> items = itemService.searchItemsAdvanced(name, description, minPrice, maxPrice, categoryId, townId, pageable);
+        Slice<ItemProjection> items;
+        if (MODE_FULLTEXT.equalsIgnoreCase(mode)) {
+            items = itemService.searchItemsFullText(name, description, minPrice, maxPrice, categoryId, townId, pageable, withTotal);
+        } else if (MODE_PREFIX.equalsIgnoreCase(mode)) {
+            items = itemService.searchItemsByNamePrefix(name, description, minPrice, maxPrice, categoryId, townId, pageable, withTotal);
+        } else {
+            items = itemService.searchItemsAdvanced(name, description, minPrice, maxPrice, categoryId, townId, pageable, withTotal);
+        }
         return ResponseEntity.ok(items);
     }
 
+    /**
+     * Typo-tolerant item name search, best match first. Tolerates misspellings
+     * and Arabic spelling variants (diacritics, tatweel, alef/yaa forms).
+     */
+    @GetMapping("/items-fuzzy")
+    public ResponseEntity<List<ItemProjection>> searchItemsFuzzy(
+            @RequestParam String name,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(itemService.searchItemsFuzzy(name, CursorPage.clampSize(size)));
+    }
+
+    /**
+     * Facet counts for the same filters as /items-advanced: items per category,
+     * per town and per price bucket.
+     */
+    @GetMapping("/items-facets")
+    public ResponseEntity<ItemFacets> getItemFacets(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String description,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Long townId
+    ) {
+        return ResponseEntity.ok(itemService.getItemFacets(name, description, minPrice, maxPrice, categoryId, townId));
+    }
+
+    /**
+     * Keyset-paginated variant of /items-advanced ordered by (price, id).
+     * Pass the returned nextCursor to fetch the next window.
+     */
+    @GetMapping("/items-advanced-scroll")
+    public ResponseEntity<CursorPage<ItemProjection>> scrollItemsAdvanced(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String description,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Long townId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return ResponseEntity.ok(itemService.scrollItemsAdvanced(name, description, minPrice, maxPrice, categoryId, townId,
+                cursor, CursorPage.clampSize(size)));
+    }
+
     @GetMapping("/items-by-ids-list")
     public ResponseEntity<?> getItemsByIdsList(@RequestParam String list) {
         if (list.isEmpty()) {
@@ -134,18 +310,32 @@ public class SearchController {
 
     @GetMapping("/items-by-description")
     public ResponseEntity<Page<Item>> searchItems(
-            @RequestParam String description, Pageable pageable) {
-        Page<Item> items = itemService.searchItemsByDescription(description, pageable);
-        return ResponseEntity.ok(items);
+            @RequestParam String description, Pageable pageable, WebRequest webRequest) {
+        return ConditionalRequests.respond(webRequest, itemsScope(),
+                () -> itemService.searchItemsByDescription(description, pageable), itemService.getAllItemsVersion());
     }
 
     @GetMapping("/items-by-price-range")
     public ResponseEntity<Page<Item>> getItemsByPriceRange(
             @RequestParam Double minPrice,
             @RequestParam Double maxPrice,
-            Pageable pageable) {
+            Pageable pageable,
+            WebRequest webRequest) {
+        return ConditionalRequests.respond(webRequest, itemsScope(),
+                () -> itemService.getItemsByPriceRange(minPrice, maxPrice, pageable), itemService.getAllItemsVersion());
+    }
 
-        Page<Item> items = itemService.getItemsByPriceRange(minPrice, maxPrice, pageable);
-        return ResponseEntity.ok(items);
+    /**
+     * Shop bodies also render town and category names from the reference snapshot.
+     */
+    private String shopsScope() {
+        return "shops-" + referenceDataService.snapshot().getVersion();
+    }
+
+    /**
+     * Item bodies render their shop's town and category names as well.
+     */
+    private String itemsScope() {
+        return "items-" + referenceDataService.snapshot().getVersion();
     }
 }
@@ -8,6 +8,8 @@ import com.market.model.Town;
 import com.market.model.User;
 import com.market.dto.ShopRequest;
 import com.market.repository.ShopRepository;
+import com.market.service.ReferenceDataService;
+import com.market.service.ShopPageCache;
 import com.market.service.ShopService;
 import com.market.service.FileStorageService;
 import com.market.service.AuthenticationService;
@@ -18,8 +20,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/shops")
@@ -36,12 +41,16 @@ public class ShopController {
     ShopRepository shopRepository;
     @Autowired
     ObjectMapper objectMapper;
+    @Autowired
+    ShopPageCache shopPageCache;
+    @Autowired
+    ReferenceDataService referenceDataService;
 
     @PostMapping()
     @Transactional
     public ResponseEntity<Shop> createShop(@Valid @RequestBody ShopRequest shopRequest) {
         try {
-            if (!authenticationService.getCurrentUser().getAdmin()) {
+            if (!authenticationService.isAdmin()) {
                 // Require authentication
                 authenticationService.requireAuthentication();
                 // Ensure user can only create shops for themselves
@@ -90,15 +99,24 @@ public class ShopController {
         return shop;
     }
 
+    /**
+     * Served pre-serialized per shop version, with the version as a strong ETag.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Shop> getShop(@PathVariable Long id) {
-        Shop shop = shopService.getShopById(id);
-        return ResponseEntity.ok(shop);
+    public ResponseEntity<byte[]> getShop(@PathVariable Long id, WebRequest webRequest) {
+        String etag = shopPageCache.etag(id);
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        byte[] body = shopPageCache.body(etag, "profile", () -> shopService.getShopById(id));
+        return ResponseEntity.ok().eTag(etag).contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @GetMapping
-    public ResponseEntity<Page<Shop>> getAllShops(Pageable pageable) {
-        return ResponseEntity.ok(shopService.getAllShops(pageable));
+    public ResponseEntity<Page<Shop>> getAllShops(Pageable pageable, WebRequest webRequest) {
+        // Town and category names are rendered from the reference snapshot
+        return ConditionalRequests.respond(webRequest, "shops-" + referenceDataService.snapshot().getVersion(),
+                () -> shopService.getAllShops(pageable), shopService.getAllShopsVersion());
     }
 
     @PutMapping("/{id}")
@@ -112,7 +130,7 @@ public class ShopController {
 
         try {
             Shop existingShop = shopService.getShopById(id);
-            if (!authenticationService.getCurrentUser().getAdmin()) {
+            if (!authenticationService.isAdmin()) {
                 // Require authentication
                 authenticationService.requireAuthentication();
                 // Check if user owns the shop
@@ -188,7 +206,7 @@ public class ShopController {
     @Transactional
     public ResponseEntity<Void> deleteShop(@PathVariable Long id) {
         Shop shop = shopService.getShopById(id);
-        if (!authenticationService.getCurrentUser().getAdmin()) {
+        if (!authenticationService.isAdmin()) {
             // Require authentication
             authenticationService.requireAuthentication();
             // Check if user owns the shop
@@ -4,14 +4,17 @@ import com.market.dto.TownRequest;
 import com.market.model.Town;
 import com.market.service.AuthenticationService;
 import com.market.service.TownService;
+import com.market.service.ReferenceDataService;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/towns")
@@ -20,10 +23,13 @@ public class TownController {
     private static final Logger logger = LoggerFactory.getLogger(TownController.class);
     private final TownService townService;
     private final AuthenticationService authenticationService;
+    private final ReferenceDataService referenceDataService;
 
-    public TownController(TownService townService, AuthenticationService authenticationService) {
+    public TownController(TownService townService, AuthenticationService authenticationService,
+                          ReferenceDataService referenceDataService) {
         this.townService = townService;
         this.authenticationService = authenticationService;
+        this.referenceDataService = referenceDataService;
     }
 
     @PostMapping
@@ -39,25 +45,39 @@ public class TownController {
         return ResponseEntity.ok(createdTown);
     }
 
+    // Reads are served from the reference snapshot and tagged with its version
+
     @GetMapping("/{id}")
-    public ResponseEntity<Town> getTown(@PathVariable Long id) {
-        Town town = townService.getTownById(id);
-        return ResponseEntity.ok(town);
+    public ResponseEntity<Town> getTown(@PathVariable Long id, WebRequest webRequest) {
+        String etag = referenceDataService.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        Town town = townService.getTown(id);
+        return ResponseEntity.ok().eTag(etag).body(town);
     }
 
     @GetMapping("/code/{code}")
-    public ResponseEntity<Town> getTownByCode(@PathVariable String code) {
+    public ResponseEntity<Town> getTownByCode(@PathVariable String code, WebRequest webRequest) {
+        String etag = referenceDataService.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         Town town = townService.getTownByCode(code);
         if (town == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(town);
+        return ResponseEntity.ok().eTag(etag).body(town);
     }
 
     @GetMapping
-    public ResponseEntity<Page<Town>> getAllTowns(Pageable pageable) {
+    public ResponseEntity<Page<Town>> getAllTowns(Pageable pageable, WebRequest webRequest) {
+        String etag = referenceDataService.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         Page<Town> towns = townService.getAllTowns(pageable);
-        return ResponseEntity.ok(towns);
+        return ResponseEntity.ok().eTag(etag).body(towns);
     }
 
 
@@ -0,0 +1,62 @@
+package com.market.dto;
+
+import com.market.search.KeysetCursor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One window of a keyset-paginated listing. Clients pass {@code nextCursor}
+ * back to fetch the following window; it is null on the last one.
+ */
+public class CursorPage<T> {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private final List<T> content;
+    private final String nextCursor;
+    private final int size;
+    private final boolean hasNext;
+
+    public CursorPage(List<T> content, String nextCursor, int size, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.size = size;
+        this.hasNext = hasNext;
+    }
+
+    /**
+     * Build a window from a query that fetched {@code size + 1} rows; the extra
+     * row only signals that another window exists.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, KeysetCursor> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)).encode() : null;
+        return new CursorPage<>(content, nextCursor, size, hasNext);
+    }
+
+    public static int clampSize(Integer size) {
+        if (size == null || size < 1) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+}
@@ -0,0 +1,67 @@
+package com.market.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Facet counts for an advanced item search. Each dimension is counted with every
+ * filter applied except its own, so a client can show how many items it would
+ * get by switching to another category, town or price bucket.
+ */
+public class ItemFacets {
+
+    private final long total;
+    private final Map<Long, Long> categories;
+    private final Map<Long, Long> towns;
+    private final List<PriceBucket> priceBuckets;
+
+    public ItemFacets(long total, Map<Long, Long> categories, Map<Long, Long> towns, List<PriceBucket> priceBuckets) {
+        this.total = total;
+        this.categories = categories;
+        this.towns = towns;
+        this.priceBuckets = priceBuckets;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public Map<Long, Long> getCategories() {
+        return categories;
+    }
+
+    public Map<Long, Long> getTowns() {
+        return towns;
+    }
+
+    public List<PriceBucket> getPriceBuckets() {
+        return priceBuckets;
+    }
+
+    /**
+     * Price range [from, to); a null bound is open.
+     */
+    public static class PriceBucket {
+        private final Double from;
+        private final Double to;
+        private final long count;
+
+        public PriceBucket(Double from, Double to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public Double getFrom() {
+            return from;
+        }
+
+        public Double getTo() {
+            return to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
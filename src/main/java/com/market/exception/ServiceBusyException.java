@@ -0,0 +1,19 @@
+package com.market.exception;
+
+/**
+ * A bounded resource is saturated and the request was shed rather than queued;
+ * answered 503 with Retry-After.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,15 +1,25 @@
 package com.market.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.market.model.base.BaseEntity;
+import com.market.search.TextNormalizer;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "_categories")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "_categories", indexes = @Index(name = "idx_categories_name_normalized", columnList = "name_normalized"))
 public class Category extends BaseEntity {
 
     @Column(unique = true, nullable = false)
     private String name;
 
+    // Lower-cased, accent-folded copy of name kept in step by setName
+    @JsonIgnore
+    @Column(length = TextNormalizer.COLUMN_LENGTH)
+    private String nameNormalized;
+
     @Column(unique = true, nullable = false)
     private String code;
 
@@ -23,6 +33,7 @@ public class Category extends BaseEntity {
 
     public void setName(String name) {
         this.name = name;
+        this.nameNormalized = TextNormalizer.forColumn(name);
     }
 
     public String getCode() {
@@ -3,6 +3,7 @@ package com.market.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.market.model.base.BaseEntity;
+import com.market.search.TextNormalizer;
 import com.market.serializer.item.ItemSerializer;
 import com.market.serializer.shop.IdLabelShopSerializer;
 import jakarta.persistence.*;
@@ -12,7 +13,11 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 @Entity
-@Table(name = "_items")
+@Table(name = "_items", indexes = {
+        @Index(name = "idx_items_shop_deleted", columnList = "shop_id, deleted"),
+        @Index(name = "idx_items_price", columnList = "price"),
+        @Index(name = "idx_items_name_normalized", columnList = "name_normalized")
+})
 @JsonSerialize(using = ItemSerializer.class)
 public class Item extends BaseEntity {
 
@@ -22,6 +27,16 @@ public class Item extends BaseEntity {
     @Column(columnDefinition = "TEXT")
     private String description;
 
+    // Lower-cased, accent-folded copies of name/description kept in step by the
+    // setters, so searches compare a plain column instead of LOWER(column)
+    @JsonIgnore
+    @Column(length = TextNormalizer.COLUMN_LENGTH)
+    private String nameNormalized;
+
+    @JsonIgnore
+    @Column(columnDefinition = "TEXT")
+    private String descriptionNormalized;
+
     @Column(nullable = false)
     private Double price;
 
@@ -42,6 +57,7 @@ public class Item extends BaseEntity {
 
     public void setDescription(String description) {
         this.description = description;
+        this.descriptionNormalized = description == null ? null : TextNormalizer.normalize(description);
     }
 
     public Double getPrice() {
@@ -58,6 +74,7 @@ public class Item extends BaseEntity {
 
     public void setName(String name) {
         this.name = name;
+        this.nameNormalized = TextNormalizer.forColumn(name);
     }
 
     public Shop getShop() {
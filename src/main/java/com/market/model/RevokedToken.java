@@ -0,0 +1,45 @@
+package com.market.model;
+
+import com.market.model.base.BaseEntity;
+import jakarta.persistence.*;
+
+import java.util.Date;
+
+/**
+ * A JWT revoked before its expiry (e.g. by logout), identified by its jti. Kept
+ * until the token would have expired anyway, then pruned.
+ */
+@Entity
+@Table(name = "_revoked_tokens", indexes = @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"))
+public class RevokedToken extends BaseEntity {
+
+    @Column(unique = true, nullable = false, length = 36)
+    private String jti;
+
+    @Column(nullable = false)
+    private Date expiresAt;
+
+    public RevokedToken() {
+    }
+
+    public RevokedToken(String jti, Date expiresAt) {
+        this.jti = jti;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getJti() {
+        return jti;
+    }
+
+    public void setJti(String jti) {
+        this.jti = jti;
+    }
+
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Date expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
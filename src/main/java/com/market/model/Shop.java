@@ -1,9 +1,11 @@
 package com.market.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.market.model.base.BaseEntity;
+import com.market.search.TextNormalizer;
 import com.market.serializer.category.CategorySerializer;
 import com.market.serializer.shop.ShopSerializer;
 import com.market.serializer.town.TownSerializer;
@@ -14,13 +16,22 @@ import java.util.HashMap;
 import java.util.List;
 
 @Entity
-@Table(name = "_shops")
+@Table(name = "_shops", indexes = {
+        @Index(name = "idx_shops_category_town_active", columnList = "category_id, town_id, is_active"),
+        @Index(name = "idx_shops_town", columnList = "town_id"),
+        @Index(name = "idx_shops_name_normalized", columnList = "name_normalized")
+})
 @JsonSerialize(using = ShopSerializer.class)
 public class Shop extends BaseEntity {
 
     @Column(nullable = false)
     private String name;
 
+    // Lower-cased, accent-folded copy of name kept in step by setName
+    @JsonIgnore
+    @Column(length = TextNormalizer.COLUMN_LENGTH)
+    private String nameNormalized;
+
     private String description;
 
     private String address;
@@ -94,6 +105,7 @@ public class Shop extends BaseEntity {
 
     public void setName(String name) {
         this.name = name;
+        this.nameNormalized = TextNormalizer.forColumn(name);
     }
 
     public String getDescription() {
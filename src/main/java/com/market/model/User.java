@@ -3,8 +3,11 @@ package com.market.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.market.model.base.BaseEntity;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "_users")
 public class User extends BaseEntity {
 
@@ -26,6 +29,11 @@ public class User extends BaseEntity {
     @Column(nullable = false)
     private Integer shopLimit = 1; // Default shop limit for new users
 
+    // Carried in issued tokens; incremented to revoke them when their claims go stale
+    @JsonIgnore
+    @Column(nullable = false)
+    private Long tokenVersion = 0L;
+
     // Getters and Setters
     public String getUsername() {
         return username;
@@ -75,4 +83,12 @@ public class User extends BaseEntity {
     public void setShopLimit(Integer shopLimit) {
         this.shopLimit = shopLimit;
     }
+
+    public Long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(Long tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package com.market.projection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of an {@link ItemProjection}, detached from the persistence
+ * context so it can be cached and shared between requests. Serializes exactly
+ * like the projection it was taken from.
+ */
+public class ItemSummary implements ItemProjection {
+
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final Double price;
+    private final String currencyType;
+    private final Boolean deleted;
+    private final List<String> imageKeysAsList;
+    private final ShopSummary shop;
+
+    private ItemSummary(ItemProjection item) {
+        this.id = item.getId();
+        this.name = item.getName();
+        this.description = item.getDescription();
+        this.price = item.getPrice();
+        this.currencyType = item.getCurrencyType();
+        this.deleted = item.getDeleted();
+        this.imageKeysAsList = item.getImageKeysAsList() == null ? null : Collections.unmodifiableList(new ArrayList<>(item.getImageKeysAsList()));
+        this.shop = item.getShop() == null ? null : new ShopSummary(item.getShop());
+    }
+
+    public static ItemSummary of(ItemProjection item) {
+        return item instanceof ItemSummary ? (ItemSummary) item : new ItemSummary(item);
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public Double getPrice() {
+        return price;
+    }
+
+    @Override
+    public String getCurrencyType() {
+        return currencyType;
+    }
+
+    @Override
+    public Boolean getDeleted() {
+        return deleted;
+    }
+
+    @Override
+    public List<String> getImageKeysAsList() {
+        return imageKeysAsList;
+    }
+
+    @Override
+    public ShopSummary getShop() {
+        return shop;
+    }
+
+    public static class ShopSummary implements ShopInfo {
+        private final Long id;
+        private final String name;
+        private final String phone;
+
+        private ShopSummary(ShopInfo shop) {
+            this.id = shop.getId();
+            this.name = shop.getName();
+            this.phone = shop.getPhone();
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getPhone() {
+            return phone;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.market.projection;
+
+import com.market.model.base.BaseEntity;
+
+import java.util.Date;
+
+/**
+ * Cheap validator for a set of rows: how many there are and when the latest of
+ * them changed. Inserts, updates and soft deletes all move updatedAt, so the
+ * stamp changes whenever the rows a response is built from do.
+ * <p>
+ * Built by JPQL constructor expressions over COUNT and MAX(updatedAt), from
+ * loaded entities, or from an in-process version for sets too large to aggregate.
+ */
+public class VersionStamp {
+
+    private final String tag;
+    private final long lastModified;
+
+    public VersionStamp(Long count, Date lastModified) {
+        this.tag = count + "." + millis(lastModified);
+        this.lastModified = millis(lastModified);
+    }
+
+    private VersionStamp(String tag) {
+        this.tag = tag;
+        this.lastModified = 0;
+    }
+
+    /**
+     * Rows and the rows nested in their representation, e.g. shops and their items.
+     */
+    public VersionStamp(Long count, Date lastModified, Long nestedCount, Date nestedLastModified) {
+        this.tag = count + "." + millis(lastModified) + "." + nestedCount + "." + millis(nestedLastModified);
+        this.lastModified = Math.max(millis(lastModified), millis(nestedLastModified));
+    }
+
+    public static VersionStamp of(BaseEntity entity) {
+        return new VersionStamp(1L, entity.getUpdatedAt());
+    }
+
+    /**
+     * @param version A version moved after every commit that changes the rows; the
+     *                time of the latest change is then unknown
+     */
+    public static VersionStamp of(String version) {
+        return new VersionStamp(version);
+    }
+
+    /**
+     * @return Identifies this state of the rows; suitable as part of an ETag
+     */
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * @return Epoch millis of the latest change, 0 if unknown
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    private static long millis(Date date) {
+        return date == null ? 0 : date.getTime();
+    }
+}
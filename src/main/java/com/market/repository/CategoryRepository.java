@@ -1,13 +1,19 @@
 package com.market.repository;
 
 import com.market.model.Category;
+import com.market.search.Suggestion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
 
@@ -15,12 +21,32 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
 
     boolean existsByCode(String code);
 
+    @QueryHints({@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "natural-id-queries")})
     Category findByCode(String code);
 
-    @Query("SELECT c FROM Category c WHERE c.name LIKE %?1%")
+    /**
+     * @param name Already normalized with {@link com.market.search.TextNormalizer}
+     */
+    @Query("SELECT c FROM Category c WHERE c.nameNormalized LIKE %?1%")
     Page<Category> findByContainName(String name, Pageable pageable);
 
+    /**
+     * Prefix lookup on the indexed normalized column: an index range scan.
+     *
+     * @param prefix Already normalized with {@link com.market.search.TextNormalizer}
+     */
+    Page<Category> findByNameNormalizedStartingWith(String prefix, Pageable pageable);
+
+    /**
+     * Autocomplete source: non-deleted categories weighted by their number of live shops.
+     */
+    @Query("SELECT new com.market.search.Suggestion(c.id, c.name, COUNT(s.id)) FROM Category c " +
+            "LEFT JOIN Shop s ON s.category = c AND s.isActive = true AND s.deleted = false " +
+            "WHERE c.deleted = false GROUP BY c.id, c.name ORDER BY COUNT(s.id) DESC")
+    List<Suggestion> findSuggestions(Pageable limit);
+
     @Modifying
-    @Query("update Category c SET c.deleted = true WHERE c.id = :id")
+    @Query("update Category c SET c.deleted = true, c.updatedAt = CURRENT_TIMESTAMP WHERE c.id = :id")
     void softDeleteById(Long id);
 }
@@ -2,47 +2,73 @@ package com.market.repository;
 
 import com.market.model.Item;
 import com.market.projection.ItemProjection;
+import com.market.search.ItemDocument;
+import com.market.search.Suggestion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends JpaRepository<Item, Long>, JpaSpecificationExecutor<Item>, ItemSearchRepository {
     @Query(
             "SELECT i FROM Item i WHERE i.shop.id = :shopId AND i.deleted = false"
     )
     List<Item> findByShopId(Long shopId);
 
-    List<Item> findByDescriptionContainingIgnoreCase(String name);
+    /**
+     * @param description Already normalized with {@link com.market.search.TextNormalizer}
+     */
+    List<Item> findByDescriptionNormalizedContaining(String description);
 
     List<Item> findByPriceBetween(Double minPrice, Double maxPrice);
 
     // Pageable versions
-    Page<ItemProjection> findByShopIdAndDeletedFalse(Long shopId, Pageable pageable);
+    Slice<ItemProjection> findByShopIdAndDeletedFalse(Long shopId, Pageable pageable);
 
-    Page<Item> findByDescriptionContainingIgnoreCase(String name, Pageable pageable);
+    long countByShopIdAndDeletedFalse(Long shopId);
+
+    Page<Item> findByDescriptionNormalizedContaining(String description, Pageable pageable);
 
     Page<Item> findByPriceBetween(Double minPrice, Double maxPrice, Pageable pageable);
 
-    Page<Item> findByNameContainingIgnoreCase(String name, Pageable pageable);
+    /**
+     * Prefix lookup on the indexed normalized name: an index range scan.
+     *
+     * @param prefix Already normalized with {@link com.market.search.TextNormalizer}
+     */
+    Page<Item> findByNameNormalizedStartingWith(String prefix, Pageable pageable);
+
+    // Advanced search and its keyset variant are built from ItemSpecifications and run
+    // through ItemSearchRepository#findIds, so only the supplied filters reach the SQL
 
-    @Query("SELECT i FROM Item i  " +
-            "Join Shop s ON s.id = i.shop.id WHERE s.isActive = true AND s.deleted = false AND i.deleted = false AND " +
-            "(:name IS NULL OR LOWER(i.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
-            "(:description IS NULL OR LOWER(i.description) LIKE LOWER(CONCAT('%', :description, '%'))) AND " +
-            "(:categoryId IS NULL OR i.shop.category.id = :categoryId) AND " +
-            "(:townId IS NULL OR i.shop.town.id = :townId) AND " +
+    /**
+     * Relevance-ranked search backed by the FULLTEXT (ngram) index on _items(name, description).
+     * Returns only ids as a Slice (size + 1 rows, no COUNT); callers hydrate the page with
+     * {@link #findProjectedByIdIn}.
+     *
+     * @param query Boolean-mode MATCH expression, already sanitized
+     */
+    @Query(value = "SELECT i.id FROM _items i JOIN _shops s ON s.id = i.shop_id " +
+            "WHERE s.is_active = true AND s.deleted = false AND i.deleted = false AND " +
+            "MATCH(i.name, i.description) AGAINST (:query IN BOOLEAN MODE) AND " +
+            "(:categoryId IS NULL OR s.category_id = :categoryId) AND " +
+            "(:townId IS NULL OR s.town_id = :townId) AND " +
             "(:minPrice IS NULL OR i.price >= :minPrice) AND " +
-            "(:maxPrice IS NULL OR i.price <= :maxPrice)")
-    Page<ItemProjection> searchItemsAdvanced(
-            @Param("name") String name,
-            @Param("description") String description,
+            "(:maxPrice IS NULL OR i.price <= :maxPrice) " +
+            "ORDER BY MATCH(i.name, i.description) AGAINST (:query IN BOOLEAN MODE) DESC, i.id",
+            nativeQuery = true)
+    Slice<Long> searchItemIdsFullText(
+            @Param("query") String query,
             @Param("minPrice") Double minPrice,
             @Param("maxPrice") Double maxPrice,
             @Param("categoryId") Long categoryId,
@@ -50,9 +76,58 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
             Pageable pageable
     );
 
+    /**
+     * Total for {@link #searchItemIdsFullText}; callers cache it in SearchCountCache.
+     */
+    @Query(value = "SELECT COUNT(*) FROM _items i JOIN _shops s ON s.id = i.shop_id " +
+            "WHERE s.is_active = true AND s.deleted = false AND i.deleted = false AND " +
+            "MATCH(i.name, i.description) AGAINST (:query IN BOOLEAN MODE) AND " +
+            "(:categoryId IS NULL OR s.category_id = :categoryId) AND " +
+            "(:townId IS NULL OR s.town_id = :townId) AND " +
+            "(:minPrice IS NULL OR i.price >= :minPrice) AND " +
+            "(:maxPrice IS NULL OR i.price <= :maxPrice)",
+            nativeQuery = true)
+    long countItemsFullText(
+            @Param("query") String query,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            @Param("categoryId") Long categoryId,
+            @Param("townId") Long townId
+    );
+
+    // Keyset (seek) variant: callers pass a Pageable of size + 1 rows from page 0
+
+    List<ItemProjection> findByShopIdAndDeletedFalseAndIdGreaterThanOrderByIdAsc(Long shopId, Long afterId, Pageable limit);
+
     List<ItemProjection> findByIdIn(List<String> list);
 
+    List<ItemProjection> findProjectedByIdIn(Collection<Long> ids);
+
+    // Catalog index loading: live items only (active, non-deleted shop and non-deleted item)
+
+    @Query("SELECT new com.market.search.ItemDocument(i.id, i.name, i.description, i.price, s.id, s.category.id, s.town.id) " +
+            "FROM Item i JOIN i.shop s WHERE s.isActive = true AND s.deleted = false AND i.deleted = false")
+    List<ItemDocument> findIndexDocuments();
+
+    @Query("SELECT new com.market.search.ItemDocument(i.id, i.name, i.description, i.price, s.id, s.category.id, s.town.id) " +
+            "FROM Item i JOIN i.shop s WHERE s.isActive = true AND s.deleted = false AND i.deleted = false AND s.id = :shopId")
+    List<ItemDocument> findIndexDocumentsByShopId(@Param("shopId") Long shopId);
+
+    @Query("SELECT new com.market.search.ItemDocument(i.id, i.name, i.description, i.price, s.id, s.category.id, s.town.id) " +
+            "FROM Item i JOIN i.shop s WHERE s.isActive = true AND s.deleted = false AND i.deleted = false AND i.id = :id")
+    Optional<ItemDocument> findIndexDocumentById(@Param("id") Long id);
+
+    /**
+     * Autocomplete source: one entry per distinct normalized name among live items,
+     * weighted by how many items carry it. An entry stands for every item with that
+     * name, so it carries no item id.
+     */
+    @Query("SELECT new com.market.search.Suggestion(MIN(i.name), COUNT(i.id)) " +
+            "FROM Item i JOIN i.shop s WHERE s.isActive = true AND s.deleted = false AND i.deleted = false " +
+            "GROUP BY i.nameNormalized ORDER BY COUNT(i.id) DESC")
+    List<Suggestion> findSuggestions(Pageable limit);
+
     @Modifying
-    @Query("update Item i SET i.deleted = true WHERE i.id = :id")
+    @Query("update Item i SET i.deleted = true, i.updatedAt = CURRENT_TIMESTAMP WHERE i.id = :id")
     void softDeleteById(Long id);
 }
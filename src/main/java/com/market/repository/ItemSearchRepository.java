@@ -0,0 +1,41 @@
+package com.market.repository;
+
+import com.market.model.Item;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Map;
+
+/**
+ * Custom fragment of {@link ItemRepository} for specification-based searches.
+ */
+public interface ItemSearchRepository {
+
+    /**
+     * Select only the ids of matching items as a Slice: one extra row is fetched
+     * to detect a next page and no COUNT query is issued. Callers hydrate the
+     * ids with {@link ItemRepository#findProjectedByIdIn}.
+     */
+    Slice<Long> findIds(Specification<Item> spec, Pageable pageable);
+
+    /**
+     * Matching items counted per shop category, in one GROUP BY query.
+     */
+    Map<Long, Long> countByCategory(Specification<Item> spec);
+
+    /**
+     * Matching items counted per shop town, in one GROUP BY query.
+     */
+    Map<Long, Long> countByTown(Specification<Item> spec);
+
+    /**
+     * Matching items counted per price bucket, in one query. Bucket i covers
+     * [bounds[i - 1], bounds[i]); the first and last are open-ended, and items
+     * without a price fall in none.
+     *
+     * @param bounds Ascending bucket bounds
+     * @return bounds.length + 1 counts
+     */
+    long[] countByPriceBucket(Specification<Item> spec, double[] bounds);
+}
@@ -0,0 +1,125 @@
+package com.market.repository;
+
+import com.market.model.Item;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public class ItemSearchRepositoryImpl implements ItemSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Long> findIds(Specification<Item> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Item> root = query.from(Item.class);
+        query.select(root.get("id"));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        TypedQuery<Long> typedQuery = entityManager.createQuery(query);
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(typedQuery.getResultList(), pageable, false);
+        }
+        typedQuery.setFirstResult((int) pageable.getOffset());
+        typedQuery.setMaxResults(pageable.getPageSize() + 1);
+
+        List<Long> ids = typedQuery.getResultList();
+        boolean hasNext = ids.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? ids.subList(0, pageable.getPageSize()) : ids, pageable, hasNext);
+    }
+
+    @Override
+    public Map<Long, Long> countByCategory(Specification<Item> spec) {
+        return countGroupedBy(spec, root -> ItemSpecifications.shop(root).get("category").<Long>get("id"));
+    }
+
+    @Override
+    public Map<Long, Long> countByTown(Specification<Item> spec) {
+        return countGroupedBy(spec, root -> ItemSpecifications.shop(root).get("town").<Long>get("id"));
+    }
+
+    @Override
+    public long[] countByPriceBucket(Specification<Item> spec, double[] bounds) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Item> root = query.from(Item.class);
+        Path<Double> price = root.get("price");
+
+        // One SUM(CASE ...) column per bucket, so the histogram is a single row
+        List<Selection<?>> columns = new ArrayList<>(bounds.length + 1);
+        for (int i = 0; i <= bounds.length; i++) {
+            List<Predicate> inBucket = new ArrayList<>(2);
+            inBucket.add(cb.isNotNull(price));
+            if (i > 0) {
+                inBucket.add(cb.greaterThanOrEqualTo(price, bounds[i - 1]));
+            }
+            if (i < bounds.length) {
+                inBucket.add(cb.lessThan(price, bounds[i]));
+            }
+            columns.add(cb.sum(cb.<Long>selectCase()
+                    .when(cb.and(inBucket.toArray(new Predicate[0])), 1L)
+                    .otherwise(0L)));
+        }
+        query.multiselect(columns);
+        applyWhere(query, root, cb, spec);
+
+        Tuple row = entityManager.createQuery(query).getSingleResult();
+        long[] counts = new long[bounds.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            // SUM over no rows is NULL
+            Number count = (Number) row.get(i);
+            counts[i] = count == null ? 0 : count.longValue();
+        }
+        return counts;
+    }
+
+    private Map<Long, Long> countGroupedBy(Specification<Item> spec, Function<Root<Item>, Path<Long>> key) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Item> root = query.from(Item.class);
+        // The predicate first, so the key reuses its shop join
+        applyWhere(query, root, cb, spec);
+        Path<Long> group = key.apply(root);
+        query.multiselect(group, cb.count(root)).groupBy(group);
+
+        Map<Long, Long> counts = new HashMap<>();
+        for (Tuple row : entityManager.createQuery(query).getResultList()) {
+            counts.put(row.get(0, Long.class), row.get(1, Long.class));
+        }
+        return counts;
+    }
+
+    private static void applyWhere(CriteriaQuery<?> query, Root<Item> root, CriteriaBuilder cb, Specification<Item> spec) {
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+}
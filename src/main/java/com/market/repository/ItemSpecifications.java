@@ -0,0 +1,151 @@
+package com.market.repository;
+
+import com.market.model.Item;
+import com.market.model.Shop;
+import com.market.search.TextNormalizer;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Composable item search predicates. Unlike a single JPQL string with
+ * {@code (:x IS NULL OR ...)} guards, only the filters that were actually supplied
+ * end up in the SQL, so MySQL can plan each combination against the matching
+ * index. Shop filters compare the shop's category_id/town_id foreign keys
+ * directly and never join the category or town tables.
+ */
+public final class ItemSpecifications {
+
+    private ItemSpecifications() {
+    }
+
+    /**
+     * Advanced item search; null or blank arguments add no predicate.
+     *
+     * @param ids Candidate ids already resolved by the catalog index (can be null)
+     */
+    public static Specification<Item> advancedSearch(String name, String description, Double minPrice, Double maxPrice,
+                                                     Long categoryId, Long townId, Collection<Long> ids) {
+        Specification<Item> spec = live();
+        if (ids != null) {
+            spec = spec.and(idIn(ids));
+        } else {
+            String normalizedName = TextNormalizer.normalize(name);
+            String normalizedDescription = TextNormalizer.normalize(description);
+            if (!normalizedName.isEmpty()) {
+                spec = spec.and(nameMatches(normalizedName));
+            }
+            if (!normalizedDescription.isEmpty()) {
+                spec = spec.and(descriptionMatches(normalizedDescription));
+            }
+        }
+        if (minPrice != null) {
+            spec = spec.and(priceAtLeast(minPrice));
+        }
+        if (maxPrice != null) {
+            spec = spec.and(priceAtMost(maxPrice));
+        }
+        if (categoryId != null) {
+            spec = spec.and(inCategory(categoryId));
+        }
+        if (townId != null) {
+            spec = spec.and(inTown(townId));
+        }
+        return spec;
+    }
+
+    /**
+     * Items that are not deleted and whose shop is active and not deleted.
+     */
+    public static Specification<Item> live() {
+        return (root, query, cb) -> {
+            Join<Item, Shop> shop = shop(root);
+            return cb.and(
+                    cb.isFalse(root.get("deleted")),
+                    cb.isTrue(shop.get("isActive")),
+                    cb.isFalse(shop.get("deleted")));
+        };
+    }
+
+    // Text predicates compare the normalized shadow columns. Arguments must already be
+    // normalized with TextNormalizer, which also leaves no LIKE wildcards in them
+
+    /**
+     * Every word of the query starts a word of the name: the matching rule of the
+     * in-memory InvertedIndex, so results do not depend on which path serves them.
+     */
+    public static Specification<Item> nameMatches(String normalizedName) {
+        return wordPrefixes("nameNormalized", normalizedName);
+    }
+
+    /**
+     * LIKE 'x%' on the indexed name_normalized column, which MySQL runs as an index range scan.
+     */
+    public static Specification<Item> nameStartsWith(String normalizedPrefix) {
+        return (root, query, cb) -> cb.like(root.get("nameNormalized"), normalizedPrefix + "%");
+    }
+
+    public static Specification<Item> descriptionMatches(String normalizedDescription) {
+        return wordPrefixes("descriptionNormalized", normalizedDescription);
+    }
+
+    public static Specification<Item> priceAtLeast(Double minPrice) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    public static Specification<Item> priceAtMost(Double maxPrice) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+
+    public static Specification<Item> inCategory(Long categoryId) {
+        return (root, query, cb) -> cb.equal(shop(root).get("category").get("id"), categoryId);
+    }
+
+    public static Specification<Item> inTown(Long townId) {
+        return (root, query, cb) -> cb.equal(shop(root).get("town").get("id"), townId);
+    }
+
+    public static Specification<Item> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    /**
+     * Keyset predicate for scrolling in (price, id) order.
+     */
+    public static Specification<Item> afterPriceAndId(Double price, Long id) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("price"), price),
+                cb.and(cb.equal(root.get("price"), price), cb.greaterThan(root.get("id"), id)));
+    }
+
+    /**
+     * Normalized columns separate words with single spaces, so a word starting with
+     * the token is either at the start of the column or right after a space.
+     */
+    private static Specification<Item> wordPrefixes(String attribute, String normalizedQuery) {
+        return (root, query, cb) -> cb.and(Arrays.stream(normalizedQuery.split(" "))
+                .distinct()
+                .map(token -> cb.or(
+                        cb.like(root.get(attribute), token + "%"),
+                        cb.like(root.get(attribute), "% " + token + "%")))
+                .toArray(Predicate[]::new));
+    }
+
+    /**
+     * Reuse the shop join when several predicates need it, so the query joins
+     * _shops exactly once.
+     */
+    @SuppressWarnings("unchecked")
+    static Join<Item, Shop> shop(From<?, Item> root) {
+        return root.getJoins().stream()
+                .filter(join -> "shop".equals(join.getAttribute().getName()))
+                .map(join -> (Join<Item, Shop>) join)
+                .findFirst()
+                .orElseGet(() -> root.join("shop", JoinType.INNER));
+    }
+}
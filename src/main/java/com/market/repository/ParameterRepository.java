@@ -1,9 +1,12 @@
 package com.market.repository;
 
 import com.market.model.Parameter;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,6 +14,8 @@ import java.util.List;
 @Repository
 public interface ParameterRepository extends JpaRepository<Parameter, Long> {
 
+    @QueryHints({@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "natural-id-queries")})
     Parameter findByCode(String code);
 
     List<Parameter> findByCodeIn(List<String> codes);
@@ -18,6 +23,6 @@ public interface ParameterRepository extends JpaRepository<Parameter, Long> {
     Boolean existsByCode(String code);
 
     @Modifying
-    @Query("update Parameter p SET p.deleted = true WHERE p.id = :id")
+    @Query("update Parameter p SET p.deleted = true, p.updatedAt = CURRENT_TIMESTAMP WHERE p.id = :id")
     void softDeleteById(Long id);
 }
@@ -1,13 +1,18 @@
 package com.market.repository;
 
 import com.market.model.Shop;
+import com.market.projection.VersionStamp;
+import com.market.search.ShopDocument;
+import com.market.search.Suggestion;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -29,17 +34,71 @@ public interface ShopRepository extends JpaRepository<Shop, Long> {
     // Pageable versions
     Page<Shop> findByOwnerId(Long ownerId, Pageable pageable);
 
-    Page<Shop> findByTownId(Long townId, Pageable pageable);
+    Slice<Shop> findByTownId(Long townId, Pageable pageable);
 
-    Page<Shop> findByCategoryId(Long categoryId, Pageable pageable);
+    Slice<Shop> findByCategoryId(Long categoryId, Pageable pageable);
 
-    Page<Shop> findByCategoryIdAndTownIdAndIsActiveTrue(Long categoryId, Long townId, Pageable pageable);
+    Slice<Shop> findByCategoryIdAndTownIdAndIsActiveTrue(Long categoryId, Long townId, Pageable pageable);
+
+    long countByTownId(Long townId);
+
+    long countByCategoryId(Long categoryId);
+
+    long countByCategoryIdAndTownIdAndIsActiveTrue(Long categoryId, Long townId);
+
+    // Keyset (seek) variants ordered by id: callers pass a Pageable of size + 1 rows from page 0
+
+    List<Shop> findByTownIdAndIdGreaterThanOrderByIdAsc(Long townId, Long afterId, Pageable limit);
+
+    List<Shop> findByCategoryIdAndIdGreaterThanOrderByIdAsc(Long categoryId, Long afterId, Pageable limit);
+
+    List<Shop> findByCategoryIdAndTownIdAndIsActiveTrueAndIdGreaterThanOrderByIdAsc(Long categoryId, Long townId, Long afterId, Pageable limit);
+
+    /**
+     * @param name Already normalized with {@link com.market.search.TextNormalizer}
+     */
+    List<Shop> findByNameNormalizedContainingAndIsActiveTrueAndDeletedFalse(String name, Pageable limit);
 
     boolean existsByNameAndOwnerId(String name, Long ownerId);
 
     long countByOwnerId(Long ownerId);
 
+    // Catalog index loading: live shops only (active and non-deleted)
+
+    @Query("SELECT new com.market.search.ShopDocument(s.id, s.name) FROM Shop s WHERE s.isActive = true AND s.deleted = false")
+    List<ShopDocument> findIndexDocuments();
+
+    @Query("SELECT new com.market.search.ShopDocument(s.id, s.name) FROM Shop s " +
+            "WHERE s.isActive = true AND s.deleted = false AND s.id = :id")
+    Optional<ShopDocument> findIndexDocumentById(@Param("id") Long id);
+
+    /**
+     * Autocomplete source: live shops weighted by their number of non-deleted items.
+     */
+    @Query("SELECT new com.market.search.Suggestion(s.id, s.name, COUNT(i.id)) FROM Shop s " +
+            "LEFT JOIN Item i ON i.shop = s AND i.deleted = false " +
+            "WHERE s.isActive = true AND s.deleted = false GROUP BY s.id, s.name ORDER BY COUNT(i.id) DESC")
+    List<Suggestion> findSuggestions(Pageable limit);
+
+    // Conditional GET validators: the shops in scope, and their items for itemCount
+
+    @Query("SELECT new com.market.projection.VersionStamp(COUNT(DISTINCT s.id), MAX(s.updatedAt), COUNT(i.id), MAX(i.updatedAt)) " +
+            "FROM Shop s LEFT JOIN s.items i WHERE s.owner.id = :ownerId")
+    VersionStamp findVersionStampByOwnerId(@Param("ownerId") Long ownerId);
+
+    @Query("SELECT new com.market.projection.VersionStamp(COUNT(DISTINCT s.id), MAX(s.updatedAt), COUNT(i.id), MAX(i.updatedAt)) " +
+            "FROM Shop s LEFT JOIN s.items i WHERE s.town.id = :townId")
+    VersionStamp findVersionStampByTownId(@Param("townId") Long townId);
+
+    @Query("SELECT new com.market.projection.VersionStamp(COUNT(DISTINCT s.id), MAX(s.updatedAt), COUNT(i.id), MAX(i.updatedAt)) " +
+            "FROM Shop s LEFT JOIN s.items i WHERE s.category.id = :categoryId")
+    VersionStamp findVersionStampByCategoryId(@Param("categoryId") Long categoryId);
+
+    @Query("SELECT new com.market.projection.VersionStamp(COUNT(DISTINCT s.id), MAX(s.updatedAt), COUNT(i.id), MAX(i.updatedAt)) " +
+            "FROM Shop s LEFT JOIN s.items i WHERE s.category.id = :categoryId AND s.town.id = :townId")
+    VersionStamp findVersionStampByCategoryIdAndTownId(@Param("categoryId") Long categoryId, @Param("townId") Long townId);
+
     @Modifying
-    @Query("update Shop s SET s.deleted = true WHERE s.id = :id")
+    @Query("update Shop s SET s.deleted = true, s.updatedAt = CURRENT_TIMESTAMP WHERE s.id = :id")
     void softDeleteById(Long id);
 }
\ No newline at end of file
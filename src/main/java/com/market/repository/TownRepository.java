@@ -1,26 +1,52 @@
 package com.market.repository;
 
 import com.market.model.Town;
+import com.market.search.Suggestion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface TownRepository extends JpaRepository<Town, Long> {
 
-    @Query("SELECT t FROM Town t WHERE t.name LIKE %?1%")
+    /**
+     * @param name Already normalized with {@link com.market.search.TextNormalizer}
+     */
+    @Query("SELECT t FROM Town t WHERE t.nameNormalized LIKE %?1%")
     Page<Town> findByContainName(String name, Pageable pageable);
 
+    /**
+     * Prefix lookup on the indexed normalized column: an index range scan.
+     *
+     * @param prefix Already normalized with {@link com.market.search.TextNormalizer}
+     */
+    Page<Town> findByNameNormalizedStartingWith(String prefix, Pageable pageable);
+
     boolean existsByName(String name);
 
     boolean existsByCode(String code);
 
+    @QueryHints({@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "natural-id-queries")})
     Town findByCode(String code);
 
+    /**
+     * Autocomplete source: non-deleted towns weighted by their number of live shops.
+     */
+    @Query("SELECT new com.market.search.Suggestion(t.id, t.name, COUNT(s.id)) FROM Town t " +
+            "LEFT JOIN Shop s ON s.town = t AND s.isActive = true AND s.deleted = false " +
+            "WHERE t.deleted = false GROUP BY t.id, t.name ORDER BY COUNT(s.id) DESC")
+    List<Suggestion> findSuggestions(Pageable limit);
+
     @Modifying
-    @Query("update Town t SET t.deleted = true WHERE t.id = :id")
+    @Query("update Town t SET t.deleted = true, t.updatedAt = CURRENT_TIMESTAMP WHERE t.id = :id")
     void softDeleteById(Long id);
 }
@@ -1,25 +1,34 @@
 package com.market.repository;
 
 import com.market.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
 
+    @QueryHints({@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "natural-id-queries")})
     Optional<User> findByPhone(String phone);
 
     boolean existsByUsername(String username);
 
     boolean existsByPhone(String phone);
 
+    List<User> findByUsernameOrPhone(String username, String phone);
+
     /**
      * Search users by phone and/or username with pagination
      *
@@ -28,14 +37,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @param pageable Pagination parameters
      * @return Page of users matching the criteria
      */
-    @Query("SELECT u FROM User u WHERE " +
-            "(:phone IS NULL OR u.phone = :phone) AND " +
-            "(:username IS NULL OR u.username LIKE %:username%)")
-    Page<User> searchByPhoneAndUsername(@Param("phone") String phone,
-                                        @Param("username") String username,
-                                        Pageable pageable);
+    default Page<User> searchByPhoneAndUsername(String phone, String username, Pageable pageable) {
+        return findAll(UserSpecifications.search(phone, username), pageable);
+    }
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Long> findTokenVersionById(@Param("id") Long id);
 
+    // Also revokes the user's tokens
     @Modifying
-    @Query("update User u SET u.deleted = true WHERE u.id = :id")
+    @Query("update User u SET u.deleted = true, u.updatedAt = CURRENT_TIMESTAMP, " +
+            "u.tokenVersion = u.tokenVersion + 1 WHERE u.id = :id")
     void softDeleteById(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.market.repository;
+
+import com.market.model.User;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Composable user search predicates; only supplied filters reach the SQL.
+ */
+public final class UserSpecifications {
+
+    private UserSpecifications() {
+    }
+
+    /**
+     * @param phone    Exact phone number (can be null)
+     * @param username Username fragment (can be null)
+     */
+    public static Specification<User> search(String phone, String username) {
+        Specification<User> spec = Specification.where(null);
+        if (phone != null) {
+            spec = spec.and(phoneEquals(phone));
+        }
+        if (username != null) {
+            spec = spec.and(usernameContains(username));
+        }
+        return spec;
+    }
+
+    public static Specification<User> phoneEquals(String phone) {
+        return (root, query, cb) -> cb.equal(root.get("phone"), phone);
+    }
+
+    public static Specification<User> usernameContains(String username) {
+        return (root, query, cb) -> cb.like(root.get("username"), "%" + username + "%");
+    }
+}
@@ -0,0 +1,323 @@
+package com.market.search;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.*;
+
+/**
+ * In-memory indexes over the live catalog: items that are not deleted and
+ * whose shop is active and not deleted. Membership in {@code live} therefore
+ * encodes the Item.deleted, Shop.deleted and Shop.isActive predicates; category
+ * and town each get one compressed bitmap per value. Any browse filter is a
+ * bitmap AND, and only the final page of ids ever reaches the database.
+ * <p>
+ * Item ids are stored as ints in the bitmaps; ids are IDENTITY-generated and
+ * stay well below Integer.MAX_VALUE.
+ * <p>
+ * Not thread-safe: {@link com.market.service.CatalogIndexService} owns the
+ * instance and guards every access with a read/write lock.
+ */
+public class CatalogIndex {
+
+    private final Map<Long, ItemDocument> documents = new HashMap<>();
+    private final Map<Long, Set<Long>> itemIdsByShop = new HashMap<>();
+    private final InvertedIndex nameIndex = new InvertedIndex();
+    private final InvertedIndex descriptionIndex = new InvertedIndex();
+
+    private final RoaringBitmap live = new RoaringBitmap();
+    // Live items without a price; they are never in the price index
+    private final RoaringBitmap unpriced = new RoaringBitmap();
+    private final Map<Long, RoaringBitmap> byCategory = new HashMap<>();
+    private final Map<Long, RoaringBitmap> byTown = new HashMap<>();
+    private final PriceIndex priceIndex = new PriceIndex();
+    private final TrigramIndex itemNames = new TrigramIndex();
+    private final TrigramIndex shopNames = new TrigramIndex();
+
+    public void put(ItemDocument document) {
+        remove(document.getId());
+        indexDocument(document);
+        if (document.getPrice() != null) {
+            priceIndex.add(document.getId(), document.getPrice());
+        }
+    }
+
+    /**
+     * Load a fresh index in bulk; the price index is sorted once at the end.
+     */
+    public void putAll(Collection<ItemDocument> batch) {
+        long[] ids = new long[batch.size()];
+        double[] prices = new double[batch.size()];
+        int priced = 0;
+        for (ItemDocument document : batch) {
+            remove(document.getId());
+            indexDocument(document);
+            if (document.getPrice() != null) {
+                ids[priced] = document.getId();
+                prices[priced] = document.getPrice();
+                priced++;
+            }
+        }
+        priceIndex.addAll(ids, prices, priced);
+    }
+
+    private void indexDocument(ItemDocument document) {
+        int id = toInt(document.getId());
+        documents.put(document.getId(), document);
+        itemIdsByShop.computeIfAbsent(document.getShopId(), shopId -> new HashSet<>()).add(document.getId());
+        nameIndex.add(id, document.getName());
+        descriptionIndex.add(id, document.getDescription());
+        itemNames.add(id, document.getName());
+
+        live.add(id);
+        if (document.getPrice() == null) {
+            unpriced.add(id);
+        }
+        byCategory.computeIfAbsent(document.getCategoryId(), categoryId -> new RoaringBitmap()).add(id);
+        byTown.computeIfAbsent(document.getTownId(), townId -> new RoaringBitmap()).add(id);
+    }
+
+    public void remove(Long itemId) {
+        ItemDocument existing = documents.remove(itemId);
+        if (existing == null) {
+            return;
+        }
+
+        int id = toInt(itemId);
+        Set<Long> shopItems = itemIdsByShop.get(existing.getShopId());
+        if (shopItems != null) {
+            shopItems.remove(itemId);
+            if (shopItems.isEmpty()) {
+                itemIdsByShop.remove(existing.getShopId());
+            }
+        }
+        nameIndex.remove(id, existing.getName());
+        descriptionIndex.remove(id, existing.getDescription());
+        itemNames.remove(id);
+
+        live.remove(id);
+        unpriced.remove(id);
+        if (existing.getPrice() != null) {
+            priceIndex.remove(itemId, existing.getPrice());
+        }
+        removeFrom(byCategory, existing.getCategoryId(), id);
+        removeFrom(byTown, existing.getTownId(), id);
+    }
+
+    public void putShop(ShopDocument shop) {
+        shopNames.add(toInt(shop.getId()), shop.getName());
+    }
+
+    /**
+     * Drop a shop's name and every one of its items.
+     */
+    public void removeShop(Long shopId) {
+        shopNames.remove(toInt(shopId));
+        Set<Long> shopItems = itemIdsByShop.get(shopId);
+        if (shopItems == null) {
+            return;
+        }
+        for (Long itemId : new ArrayList<>(shopItems)) {
+            remove(itemId);
+        }
+    }
+
+    /**
+     * Resolve the text part of an advanced search.
+     *
+     * @param name        Name query (can be null)
+     * @param description Description query (can be null)
+     * @param maxIds      Largest id set worth returning; beyond it an IN list costs more than the text predicates
+     * @return Ids matching every supplied query, or null if neither query has a searchable token or more
+     * than maxIds items match
+     */
+    public Set<Long> matchText(String name, String description, int maxIds) {
+        RoaringBitmap matches = textBitmap(name, description);
+        if (matches == null || matches.getLongCardinality() > maxIds) {
+            return null;
+        }
+        Set<Long> ids = new HashSet<>();
+        matches.forEach((int id) -> ids.add((long) id));
+        return ids;
+    }
+
+    /**
+     * Combine every advanced-search predicate with bitmap operations.
+     *
+     * @return Matching ids, or null if a text query was supplied but has no searchable token
+     */
+    public RoaringBitmap filter(String name, String description, Double minPrice, Double maxPrice,
+                                Long categoryId, Long townId) {
+        RoaringBitmap result = live.clone();
+
+        if (categoryId != null) {
+            result.and(byCategory.getOrDefault(categoryId, new RoaringBitmap()));
+        }
+        if (townId != null) {
+            result.and(byTown.getOrDefault(townId, new RoaringBitmap()));
+        }
+
+        if (hasText(name) || hasText(description)) {
+            RoaringBitmap text = textBitmap(name, description);
+            if (text == null) {
+                return null;
+            }
+            result.and(text);
+        }
+
+        if (minPrice != null || maxPrice != null) {
+            if (priceIndex.count(minPrice, maxPrice) < result.getLongCardinality()) {
+                // Narrow range: materialize it from the sorted price arrays
+                result.and(priceIndex.range(minPrice, maxPrice));
+            } else {
+                // Wide range: cheaper to check the price of each remaining candidate
+                RoaringBitmap inRange = new RoaringBitmap();
+                result.forEach((int id) -> {
+                    // A null price never satisfies a bound, as in SQL
+                    Double price = documents.get((long) id).getPrice();
+                    if (price != null && (minPrice == null || price >= minPrice) && (maxPrice == null || price <= maxPrice)) {
+                        inRange.add(id);
+                    }
+                });
+                result = inRange;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Feed every live document matching the text queries to a facet counter.
+     * Category, town and price filters are left to the counter.
+     *
+     * @return False if a text query was supplied but has no searchable token
+     */
+    public boolean collectFacets(String name, String description, FacetCounter counter) {
+        RoaringBitmap candidates = live;
+        if (hasText(name) || hasText(description)) {
+            candidates = textBitmap(name, description);
+            if (candidates == null) {
+                return false;
+            }
+        }
+        candidates.forEach((int id) -> counter.accept(documents.get((long) id)));
+        return true;
+    }
+
+    /**
+     * Cut one page out of a filter result, in ascending id order.
+     */
+    public static IdPage page(RoaringBitmap matches, long offset, int limit) {
+        long total = matches.getLongCardinality();
+        List<Long> ids = new ArrayList<>(limit);
+        if (offset < total) {
+            PeekableIntIterator iterator = matches.getIntIterator();
+            iterator.advanceIfNeeded(matches.select((int) offset));
+            while (iterator.hasNext() && ids.size() < limit) {
+                ids.add((long) iterator.next());
+            }
+        }
+        return new IdPage(ids, total);
+    }
+
+    /**
+     * Cut one page out of a filter result in price order, iterating whichever side
+     * is cheaper: the sorted price range, skipping ids that are not in
+     * {@code matches}, or the matches themselves, sorted by price. A walk stops
+     * once the page is full, so it costs about (offset + limit) times the range
+     * width over the number of matches; sorting costs m log m for m matches.
+     *
+     * @param matches Result of {@link #filter} for the same price bounds
+     */
+    public IdPage pageByPrice(RoaringBitmap matches, Double minPrice, Double maxPrice, boolean descending,
+                              long offset, int limit) {
+        long matched = matches.getLongCardinality();
+        long range = priceIndex.count(minPrice, maxPrice);
+        long walkCost = Math.min(range, (offset + limit) * range / Math.max(1, matched));
+        long sortCost = matched * (64 - Long.numberOfLeadingZeros(matched));
+        if (sortCost >= walkCost) {
+            // Without price bounds the matches can include unpriced items, which a walk never lists.
+            // With bounds the filter already cut them to the range, so nothing is subtracted
+            long total = matched - RoaringBitmap.andCardinality(matches, unpriced);
+            return priceIndex.page(minPrice, maxPrice, descending, offset, limit, matches::contains, total);
+        }
+
+        // Selective filter: sort the few matches instead of walking the whole range
+        long[] ids = new long[(int) matched];
+        double[] prices = new double[(int) matched];
+        int[] priced = {0};
+        matches.forEach((int id) -> {
+            // Unpriced items are not in the price index, so a walk would never reach them either
+            Double price = documents.get((long) id).getPrice();
+            if (price != null) {
+                ids[priced[0]] = id;
+                prices[priced[0]] = price;
+                priced[0]++;
+            }
+        });
+        PriceIndex subset = new PriceIndex();
+        subset.addAll(ids, prices, priced[0]);
+        return subset.page(null, null, descending, offset, limit, id -> true, priced[0]);
+    }
+
+    /**
+     * One page of live items in a price range, in price order. The total is the
+     * width of the range, so nothing outside the page is touched.
+     */
+    public IdPage pageByPriceRange(Double minPrice, Double maxPrice, boolean descending, long offset, int limit) {
+        return priceIndex.page(minPrice, maxPrice, descending, offset, limit, id -> true,
+                priceIndex.count(minPrice, maxPrice));
+    }
+
+    /**
+     * Typo-tolerant lookup of live item names, best match first.
+     */
+    public List<Long> searchItemNames(String query, int limit) {
+        return itemNames.search(query, limit);
+    }
+
+    /**
+     * Typo-tolerant lookup of live shop names, best match first.
+     */
+    public List<Long> searchShopNames(String query, int limit) {
+        return shopNames.search(query, limit);
+    }
+
+    public ItemDocument get(Long itemId) {
+        return documents.get(itemId);
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    private RoaringBitmap textBitmap(String name, String description) {
+        RoaringBitmap byName = nameIndex.match(name);
+        RoaringBitmap byDescription = descriptionIndex.match(description);
+
+        if (byName == null) {
+            return byDescription;
+        }
+        if (byDescription != null) {
+            byName.and(byDescription);
+        }
+        return byName;
+    }
+
+    private static void removeFrom(Map<Long, RoaringBitmap> bitmaps, Long key, int id) {
+        RoaringBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private static boolean hasText(String text) {
+        return text != null && !text.isBlank();
+    }
+
+    private static int toInt(Long id) {
+        return Math.toIntExact(id);
+    }
+}
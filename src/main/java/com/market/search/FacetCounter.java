@@ -0,0 +1,90 @@
+package com.market.search;
+
+import com.market.dto.ItemFacets;
+
+import java.util.*;
+
+/**
+ * Single-pass accumulator for item facet counts. Documents are fed in after the
+ * text filter has been applied; category, town and price filters are evaluated
+ * here so that each dimension can be counted without its own filter.
+ */
+public class FacetCounter {
+
+    private final Double minPrice;
+    private final Double maxPrice;
+    private final Long categoryId;
+    private final Long townId;
+    private final double[] bucketBounds;
+
+    private long total = 0;
+    private final Map<Long, Long> categories = new HashMap<>();
+    private final Map<Long, Long> towns = new HashMap<>();
+    private final long[] bucketCounts;
+
+    /**
+     * @param bucketBounds Ascending upper bounds of the price histogram; the last
+     *                     bucket is open-ended, so there are bounds + 1 buckets
+     */
+    public FacetCounter(Double minPrice, Double maxPrice, Long categoryId, Long townId, double[] bucketBounds) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.categoryId = categoryId;
+        this.townId = townId;
+        this.bucketBounds = bucketBounds;
+        this.bucketCounts = new long[bucketBounds.length + 1];
+    }
+
+    public void accept(ItemDocument document) {
+        boolean categoryMatches = categoryId == null || categoryId.equals(document.getCategoryId());
+        boolean townMatches = townId == null || townId.equals(document.getTownId());
+        boolean priceMatches = priceMatches(document.getPrice());
+
+        if (townMatches && priceMatches) {
+            categories.merge(document.getCategoryId(), 1L, Long::sum);
+        }
+        if (categoryMatches && priceMatches) {
+            towns.merge(document.getTownId(), 1L, Long::sum);
+        }
+        if (categoryMatches && townMatches && document.getPrice() != null) {
+            bucketCounts[bucketOf(document.getPrice())]++;
+        }
+        if (categoryMatches && townMatches && priceMatches) {
+            total++;
+        }
+    }
+
+    public ItemFacets result() {
+        return facets(total, categories, towns, bucketBounds, bucketCounts);
+    }
+
+    /**
+     * Assemble facets counted elsewhere (e.g. by GROUP BY queries) in the same shape.
+     *
+     * @param bucketCounts One count per bucket, bucketBounds.length + 1 of them
+     */
+    public static ItemFacets facets(long total, Map<Long, Long> categories, Map<Long, Long> towns,
+                                    double[] bucketBounds, long[] bucketCounts) {
+        List<ItemFacets.PriceBucket> buckets = new ArrayList<>(bucketCounts.length);
+        for (int i = 0; i < bucketCounts.length; i++) {
+            Double from = i == 0 ? null : bucketBounds[i - 1];
+            Double to = i == bucketBounds.length ? null : bucketBounds[i];
+            buckets.add(new ItemFacets.PriceBucket(from, to, bucketCounts[i]));
+        }
+        return new ItemFacets(total, categories, towns, buckets);
+    }
+
+    private boolean priceMatches(Double price) {
+        if (minPrice == null && maxPrice == null) {
+            return true;
+        }
+        // A null price never satisfies a bound, as in SQL
+        return price != null && (minPrice == null || price >= minPrice) && (maxPrice == null || price <= maxPrice);
+    }
+
+    private int bucketOf(double price) {
+        int position = Arrays.binarySearch(bucketBounds, price);
+        // An exact hit on a bound belongs to the bucket that starts there
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+}
@@ -0,0 +1,26 @@
+package com.market.search;
+
+import java.util.List;
+
+/**
+ * One page of item ids resolved entirely in memory, plus the exact number of
+ * matches. Only these ids need to be hydrated from the database.
+ */
+public class IdPage {
+
+    private final List<Long> ids;
+    private final long total;
+
+    public IdPage(List<Long> ids, long total) {
+        this.ids = ids;
+        this.total = total;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,89 @@
+package com.market.search;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.*;
+
+/**
+ * Token to posting-list index over one text field of the catalog. Posting lists
+ * are compressed bitmaps of item ids so they combine directly with the filter
+ * bitmaps in {@link CatalogIndex}.
+ * <p>
+ * Every query token is treated as a prefix of a word ("iph" matches "iphone",
+ * "phone" does not) and multiple query tokens are ANDed together; the SQL
+ * fallback in ItemSpecifications applies the same rule. The dictionary is kept sorted so a
+ * prefix resolves to a contiguous range of tokens instead of a scan over all
+ * items.
+ * <p>
+ * Not thread-safe: callers are expected to guard access.
+ */
+public class InvertedIndex {
+
+    private final NavigableMap<String, RoaringBitmap> postings = new TreeMap<>();
+
+    public void add(int id, String text) {
+        for (String token : tokenize(text)) {
+            postings.computeIfAbsent(token, t -> new RoaringBitmap()).add(id);
+        }
+    }
+
+    public void remove(int id, String text) {
+        for (String token : tokenize(text)) {
+            RoaringBitmap ids = postings.get(token);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolve a free-text query to the ids of matching documents.
+     *
+     * @param query The raw query text
+     * @return A new bitmap of matching ids, or null if the query contains no searchable token
+     */
+    public RoaringBitmap match(String query) {
+        Set<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+
+        RoaringBitmap result = null;
+        for (String token : tokens) {
+            RoaringBitmap matches = new RoaringBitmap();
+            for (RoaringBitmap ids : postings.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                matches.or(ids);
+            }
+
+            if (result == null) {
+                result = matches;
+            } else {
+                result.and(matches);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    public int tokenCount() {
+        return postings.size();
+    }
+
+    /**
+     * Split text into the words of its {@link TextNormalizer} form, so spelling
+     * variants index and match identically here and in the normalized columns.
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        String normalized = TextNormalizer.normalize(text);
+        if (!normalized.isEmpty()) {
+            tokens.addAll(Arrays.asList(normalized.split(" ")));
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,61 @@
+package com.market.search;
+
+/**
+ * Immutable, flattened view of a live item (active shop, not deleted) as held
+ * by the in-memory catalog indexes. Built directly from a JPQL constructor
+ * expression so loading it never touches the lazy Shop/Category/Town graph.
+ */
+public class ItemDocument {
+
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final Double price;
+    private final Long shopId;
+    private final Long categoryId;
+    private final Long townId;
+
+    public ItemDocument(Long id,
+                        String name,
+                        String description,
+                        Double price,
+                        Long shopId,
+                        Long categoryId,
+                        Long townId) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.shopId = shopId;
+        this.categoryId = categoryId;
+        this.townId = townId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public Long getShopId() {
+        return shopId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public Long getTownId() {
+        return townId;
+    }
+}
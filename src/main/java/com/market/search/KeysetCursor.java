@@ -0,0 +1,57 @@
+package com.market.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position for keyset (seek) pagination: the sort key and id of the last
+ * row a client has seen. Encoded as URL-safe Base64 so clients treat it as a token.
+ * The key is null for listings ordered by id alone.
+ */
+public class KeysetCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final Double key;
+    private final Long id;
+
+    public KeysetCursor(Double key, Long id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    public Double getKey() {
+        return key;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = (key == null ? "" : key.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor received from a client.
+     *
+     * @param cursor Encoded cursor, null or empty for the first page
+     * @return The decoded cursor, or null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            String key = raw.substring(0, separator);
+            Long id = Long.valueOf(raw.substring(separator + 1));
+            return new KeysetCursor(key.isEmpty() ? null : Double.valueOf(key), id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
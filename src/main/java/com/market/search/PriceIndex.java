@@ -0,0 +1,233 @@
+package com.market.search;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Item prices held as two parallel primitive arrays sorted by (price, id).
+ * A price range resolves to a contiguous slice with two binary searches, and
+ * that slice can be walked in price order without boxing.
+ * <p>
+ * Single writes shift the tail of the arrays; bulk loads append and sort once.
+ * Items without a price are not indexed, matching SQL where a NULL price never
+ * satisfies a bound.
+ * <p>
+ * Not thread-safe: callers are expected to guard access.
+ */
+public class PriceIndex {
+
+    private double[] prices = new double[16];
+    private long[] ids = new long[16];
+    private int size = 0;
+
+    public void add(long id, double price) {
+        ensureCapacity(size + 1);
+        int position = search(price, id);
+        if (position >= 0) {
+            return;
+        }
+        int insertAt = -position - 1;
+        System.arraycopy(prices, insertAt, prices, insertAt + 1, size - insertAt);
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        prices[insertAt] = price;
+        ids[insertAt] = id;
+        size++;
+    }
+
+    public void remove(long id, double price) {
+        int position = search(price, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(prices, position + 1, prices, position, size - position - 1);
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+    }
+
+    /**
+     * Append many entries and sort once. Used when building a fresh index, where
+     * adding one at a time would shift the arrays for every item.
+     */
+    public void addAll(long[] newIds, double[] newPrices, int count) {
+        ensureCapacity(size + count);
+        System.arraycopy(newIds, 0, ids, size, count);
+        System.arraycopy(newPrices, 0, prices, size, count);
+        size += count;
+        sort();
+    }
+
+    /**
+     * @return Number of items with minPrice <= price <= maxPrice; null bounds are open
+     */
+    public int count(Double minPrice, Double maxPrice) {
+        return Math.max(0, upperBound(maxPrice) - lowerBound(minPrice));
+    }
+
+    /**
+     * Ids of every item in the price range as a bitmap, for combining with the
+     * other filter bitmaps.
+     */
+    public RoaringBitmap range(Double minPrice, Double maxPrice) {
+        RoaringBitmap result = new RoaringBitmap();
+        int to = upperBound(maxPrice);
+        for (int i = lowerBound(minPrice); i < to; i++) {
+            result.add((int) ids[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Walk the price range in price order and return one page of the ids that
+     * pass {@code accept}, together with the number of accepted ids in the range.
+     *
+     * @param total Number of ids in the range that pass {@code accept}, if the
+     *              caller already knows it; a negative value makes this method count
+     */
+    public IdPage page(Double minPrice, Double maxPrice, boolean descending, long offset, int limit,
+                       IntPredicate accept, long total) {
+        int from = lowerBound(minPrice);
+        int to = upperBound(maxPrice);
+        boolean counting = total < 0;
+        long accepted = 0;
+        List<Long> page = new ArrayList<>(limit);
+
+        for (int n = 0; n < to - from; n++) {
+            int i = descending ? to - 1 - n : from + n;
+            if (!accept.test((int) ids[i])) {
+                continue;
+            }
+            if (accepted >= offset && page.size() < limit) {
+                page.add(ids[i]);
+            }
+            accepted++;
+            if (!counting && page.size() == limit) {
+                break;
+            }
+        }
+        return new IdPage(page, counting ? accepted : total);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * First position with price >= minPrice.
+     */
+    private int lowerBound(Double minPrice) {
+        if (minPrice == null) {
+            return 0;
+        }
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < minPrice) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First position with price > maxPrice.
+     */
+    private int upperBound(Double maxPrice) {
+        if (maxPrice == null) {
+            return size;
+        }
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] <= maxPrice) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Binary search for the exact (price, id) entry.
+     *
+     * @return Its position, or (-(insertion point) - 1) when absent
+     */
+    private int search(double price, long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(prices[mid], ids[mid], price, id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int compare(double priceA, long idA, double priceB, long idB) {
+        int cmp = Double.compare(priceA, priceB);
+        return cmp != 0 ? cmp : Long.compare(idA, idB);
+    }
+
+    /**
+     * Bottom-up merge sort over both arrays, keeping them primitive throughout.
+     */
+    private void sort() {
+        double[] pricesBuffer = new double[size];
+        long[] idsBuffer = new long[size];
+        double[] srcPrices = prices;
+        long[] srcIds = ids;
+        double[] dstPrices = pricesBuffer;
+        long[] dstIds = idsBuffer;
+
+        for (int width = 1; width < size; width *= 2) {
+            for (int left = 0; left < size; left += 2 * width) {
+                int mid = Math.min(left + width, size);
+                int right = Math.min(left + 2 * width, size);
+                int i = left;
+                int j = mid;
+                for (int k = left; k < right; k++) {
+                    if (i < mid && (j >= right || compare(srcPrices[i], srcIds[i], srcPrices[j], srcIds[j]) <= 0)) {
+                        dstPrices[k] = srcPrices[i];
+                        dstIds[k] = srcIds[i++];
+                    } else {
+                        dstPrices[k] = srcPrices[j];
+                        dstIds[k] = srcIds[j++];
+                    }
+                }
+            }
+            double[] swapPrices = srcPrices;
+            srcPrices = dstPrices;
+            dstPrices = swapPrices;
+            long[] swapIds = srcIds;
+            srcIds = dstIds;
+            dstIds = swapIds;
+        }
+
+        if (srcPrices != prices) {
+            System.arraycopy(srcPrices, 0, prices, 0, size);
+            System.arraycopy(srcIds, 0, ids, 0, size);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > prices.length) {
+            int newCapacity = Math.max(capacity, prices.length * 2);
+            prices = Arrays.copyOf(prices, newCapacity);
+            ids = Arrays.copyOf(ids, newCapacity);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.market.search;
+
+/**
+ * Immutable view of a live shop (active, not deleted) as held by the in-memory
+ * catalog indexes. Built directly from a JPQL constructor expression.
+ */
+public class ShopDocument {
+
+    private final Long id;
+    private final String name;
+
+    public ShopDocument(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
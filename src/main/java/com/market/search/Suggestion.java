@@ -0,0 +1,35 @@
+package com.market.search;
+
+/**
+ * One autocomplete entry: the entity id, the label to display and a popularity
+ * weight used for ranking. Built directly from JPQL constructor expressions.
+ * Item name entries group many items and have no id.
+ */
+public class Suggestion {
+
+    private final Long id;
+    private final String label;
+    private final long weight;
+
+    public Suggestion(Long id, String label, Long weight) {
+        this.id = id;
+        this.label = label;
+        this.weight = weight == null ? 0 : weight;
+    }
+
+    public Suggestion(String label, Long weight) {
+        this(null, label, weight);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+}
@@ -0,0 +1,176 @@
+package com.market.search;
+
+import java.util.*;
+
+/**
+ * Immutable radix trie for typeahead. Keys are labels normalized with
+ * {@link TextNormalizer}; chains of single-child nodes are collapsed into one
+ * edge, so the node count is bounded by twice the number of distinct keys.
+ * <p>
+ * Every node stores the indices of the top-k heaviest entries below it, computed
+ * once at build time. A lookup is therefore a walk down the prefix followed by
+ * copying at most k entries, independent of how many keys share the prefix.
+ * <p>
+ * Safe to share between threads once built.
+ */
+public class SuggestionTrie {
+
+    private static final int[] NONE = new int[0];
+
+    private final Suggestion[] entries;
+    private final Node root;
+    private final int topK;
+
+    private SuggestionTrie(Suggestion[] entries, Node root, int topK) {
+        this.entries = entries;
+        this.root = root;
+        this.topK = topK;
+    }
+
+    /**
+     * @param suggestions Entries to index; entries whose label normalizes to nothing are skipped
+     * @param topK        Number of entries precomputed per node, the largest limit a lookup can use
+     */
+    public static SuggestionTrie build(Collection<Suggestion> suggestions, int topK) {
+        List<String> keyList = new ArrayList<>(suggestions.size());
+        List<Suggestion> entryList = new ArrayList<>(suggestions.size());
+        for (Suggestion suggestion : suggestions) {
+            String key = TextNormalizer.normalize(suggestion.getLabel());
+            if (!key.isEmpty()) {
+                keyList.add(key);
+                entryList.add(suggestion);
+            }
+        }
+
+        // Sort entry indices by key so every subtree is a contiguous range
+        Integer[] order = new Integer[keyList.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(keyList::get));
+
+        String[] keys = new String[order.length];
+        Suggestion[] entries = new Suggestion[order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = keyList.get(order[i]);
+            entries[i] = entryList.get(order[i]);
+        }
+
+        Node root = keys.length == 0
+                ? new Node("", new char[0], new Node[0], NONE)
+                : buildNode(keys, entries, 0, keys.length, 0, topK);
+        return new SuggestionTrie(entries, root, topK);
+    }
+
+    /**
+     * @param prefix Raw user input; normalized the same way as the labels
+     * @param limit  Maximum number of suggestions, capped at the build-time top-k
+     * @return Suggestions whose normalized label starts with the prefix, heaviest first
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = TextNormalizer.normalize(prefix);
+        Node node = root;
+        int position = 0;
+        while (true) {
+            String label = node.label;
+            for (int i = 0; i < label.length(); i++) {
+                if (position == key.length()) {
+                    return top(node, limit);
+                }
+                if (key.charAt(position) != label.charAt(i)) {
+                    return List.of();
+                }
+                position++;
+            }
+            if (position == key.length()) {
+                return top(node, limit);
+            }
+            int child = Arrays.binarySearch(node.firstChars, key.charAt(position));
+            if (child < 0) {
+                return List.of();
+            }
+            node = node.children[child];
+        }
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    private List<Suggestion> top(Node node, int limit) {
+        int count = Math.min(Math.min(limit, topK), node.top.length);
+        List<Suggestion> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(entries[node.top[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Build the node for keys[from, to), all of which share their first {@code depth} characters.
+     */
+    private static Node buildNode(String[] keys, Suggestion[] entries, int from, int to, int depth, int topK) {
+        // Keys are sorted, so the common prefix of the range is that of its first and last key
+        int end = commonPrefixLength(keys[from], keys[to - 1]);
+        String label = keys[from].substring(depth, end);
+
+        List<Integer> candidates = new ArrayList<>();
+        int i = from;
+        while (i < to && keys[i].length() == end) {
+            candidates.add(i++);
+        }
+
+        List<Character> firstChars = new ArrayList<>();
+        List<Node> children = new ArrayList<>();
+        while (i < to) {
+            char c = keys[i].charAt(end);
+            int j = i;
+            while (j < to && keys[j].charAt(end) == c) {
+                j++;
+            }
+            Node child = buildNode(keys, entries, i, j, end, topK);
+            firstChars.add(c);
+            children.add(child);
+            for (int index : child.top) {
+                candidates.add(index);
+            }
+            i = j;
+        }
+
+        candidates.sort(Comparator.comparingLong((Integer index) -> entries[index].getWeight()).reversed()
+                .thenComparingInt(index -> keys[index].length()));
+        int[] top = new int[Math.min(topK, candidates.size())];
+        for (int k = 0; k < top.length; k++) {
+            top[k] = candidates.get(k);
+        }
+
+        char[] chars = new char[firstChars.size()];
+        for (int k = 0; k < chars.length; k++) {
+            chars[k] = firstChars.get(k);
+        }
+        return new Node(label.intern(), chars, children.toArray(new Node[0]), top);
+    }
+
+    private static int commonPrefixLength(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+        private final String label;
+        private final char[] firstChars;
+        private final Node[] children;
+        private final int[] top;
+
+        private Node(String label, char[] firstChars, Node[] children, int[] top) {
+            this.label = label;
+            this.firstChars = firstChars;
+            this.children = children;
+            this.top = top;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.market.search;
+
+import java.util.Locale;
+
+/**
+ * Entity types served by the autocomplete tries.
+ */
+public enum SuggestionType {
+    TOWN,
+    CATEGORY,
+    SHOP,
+    ITEM;
+
+    public static SuggestionType fromParameter(String value) {
+        if (value != null) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ignored) {
+                // Fall through to a message that lists the accepted values
+            }
+        }
+        throw new IllegalArgumentException("Unknown suggestion type: " + value + ", expected one of town, category, shop, item");
+    }
+}
@@ -0,0 +1,80 @@
+package com.market.search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Folds spelling variants that users do not distinguish when typing, so that
+ * they index and match identically: case, compatibility forms, accents and
+ * Arabic diacritics (harakat), tatweel, hamza forms of alef, and alef maqsura
+ * versus yaa. Anything that is not a letter or digit becomes a single space.
+ * <p>
+ * Used both by the in-memory indexes and for the persisted *_normalized search
+ * columns, so a query normalized here matches either.
+ */
+public final class TextNormalizer {
+
+    /**
+     * Length of the persisted normalized columns.
+     */
+    public static final int COLUMN_LENGTH = 255;
+
+    private static final char TATWEEL = '\u0640';
+    private static final char ALEF = '\u0627';
+    private static final char ALEF_WASLA = '\u0671';
+    private static final char YAA = '\u064A';
+    private static final char ALEF_MAQSURA = '\u0649';
+
+    private TextNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+
+        // NFKD splits accented letters and hamza/madda forms of alef into a base letter plus combining marks
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD).toLowerCase(Locale.ROOT);
+        StringBuilder result = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK || c == TATWEEL) {
+                continue;
+            }
+            if (!Character.isLetterOrDigit(c)) {
+                pendingSpace = result.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                result.append(' ');
+                pendingSpace = false;
+            }
+            result.append(fold(c));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Value for a persisted normalized column: null stays null and the result is
+     * cut to {@link #COLUMN_LENGTH}.
+     */
+    public static String forColumn(String text) {
+        if (text == null) {
+            return null;
+        }
+        String normalized = normalize(text);
+        return normalized.length() > COLUMN_LENGTH ? normalized.substring(0, COLUMN_LENGTH) : normalized;
+    }
+
+    private static char fold(char c) {
+        switch (c) {
+            case ALEF_WASLA:
+                return ALEF;
+            case ALEF_MAQSURA:
+                return YAA;
+            default:
+                return c;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.market.search;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.*;
+
+/**
+ * Typo-tolerant name lookup. Every name is normalized with {@link TextNormalizer}
+ * and broken into space-padded character trigrams ("iphone" gives " ip", "iph",
+ * ..., "ne "), each with a bitmap posting list of ids.
+ * <p>
+ * A query allowing k edits must share at least (trigrams - 3k) trigrams with a
+ * match, since one edit destroys at most three of them. By pigeonhole, such a
+ * candidate appears in at least one of the rarest (trigrams - minimum + 1)
+ * posting lists, so only those are scanned. Candidates are then ranked by a
+ * bounded edit distance against same-length word windows of the name, and
+ * after that by trigram overlap.
+ * <p>
+ * Not thread-safe: callers are expected to guard access.
+ */
+public class TrigramIndex {
+
+    private static final int MAX_CANDIDATES = 20_000;
+
+    private final Map<String, RoaringBitmap> postings = new HashMap<>();
+    private final Map<Integer, String> texts = new HashMap<>();
+
+    public void add(int id, String text) {
+        remove(id);
+        String normalized = TextNormalizer.normalize(text);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        texts.put(id, normalized);
+        for (String trigram : trigrams(normalized)) {
+            postings.computeIfAbsent(trigram, t -> new RoaringBitmap()).add(id);
+        }
+    }
+
+    public void remove(int id) {
+        String existing = texts.remove(id);
+        if (existing == null) {
+            return;
+        }
+        for (String trigram : trigrams(existing)) {
+            RoaringBitmap ids = postings.get(trigram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param query Raw user input
+     * @param limit Maximum number of ids to return
+     * @return Ids of matching names, best match first
+     */
+    public List<Long> search(String query, int limit) {
+        String normalized = TextNormalizer.normalize(query);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> grams = new ArrayList<>(trigrams(normalized));
+        List<RoaringBitmap> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            lists.add(postings.getOrDefault(gram, new RoaringBitmap()));
+        }
+        lists.sort(Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+
+        int maxEdits = maxEdits(normalized);
+        int minOverlap = Math.max(1, lists.size() - 3 * maxEdits);
+        RoaringBitmap candidates = candidates(lists, minOverlap);
+        // Very common trigrams: tighten the overlap requirement until the scan is bounded
+        while (candidates.getLongCardinality() > MAX_CANDIDATES && minOverlap < lists.size()) {
+            minOverlap++;
+            candidates = candidates(lists, minOverlap);
+        }
+
+        String[] queryWords = normalized.split(" ");
+        List<Match> matches = new ArrayList<>();
+        final int requiredOverlap = minOverlap;
+        candidates.forEach((int id) -> {
+            int overlap = 0;
+            for (RoaringBitmap list : lists) {
+                if (list.contains(id)) {
+                    overlap++;
+                }
+            }
+            if (overlap < requiredOverlap) {
+                return;
+            }
+            String text = texts.get(id);
+            int distance = windowDistance(queryWords, text.split(" "), maxEdits);
+            if (distance <= maxEdits) {
+                matches.add(new Match(id, distance, overlap, text.length()));
+            }
+        });
+
+        matches.sort(Comparator.comparingInt((Match m) -> m.distance)
+                .thenComparing(Comparator.comparingInt((Match m) -> m.overlap).reversed())
+                .thenComparingInt(m -> m.length)
+                .thenComparingInt(m -> m.id));
+
+        List<Long> ids = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            ids.add((long) matches.get(i).id);
+        }
+        return ids;
+    }
+
+    public int size() {
+        return texts.size();
+    }
+
+    /**
+     * Ids present in at least one of the rarest (lists - minOverlap + 1) posting lists.
+     */
+    private static RoaringBitmap candidates(List<RoaringBitmap> sortedLists, int minOverlap) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (int i = 0; i < sortedLists.size() - minOverlap + 1; i++) {
+            result.or(sortedLists.get(i));
+        }
+        return result;
+    }
+
+    private static int maxEdits(String normalized) {
+        int letters = normalized.replace(" ", "").length();
+        if (letters <= 3) {
+            return 0;
+        }
+        return letters <= 6 ? 1 : 2;
+    }
+
+    private static Set<String> trigrams(String normalized) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String word : normalized.split(" ")) {
+            String padded = " " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Smallest edit distance between the query and any run of the same number of
+     * consecutive words in the name, capped at maxEdits + 1.
+     */
+    private static int windowDistance(String[] queryWords, String[] nameWords, int maxEdits) {
+        String query = String.join(" ", queryWords);
+        int window = Math.min(queryWords.length, nameWords.length);
+        int best = maxEdits + 1;
+        for (int start = 0; start + window <= nameWords.length && best > 0; start++) {
+            String candidate = String.join(" ", Arrays.copyOfRange(nameWords, start, start + window));
+            best = Math.min(best, boundedLevenshtein(query, candidate, maxEdits));
+        }
+        return best;
+    }
+
+    /**
+     * Levenshtein distance, or max + 1 as soon as it is known to exceed max.
+     */
+    static int boundedLevenshtein(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    private static class Match {
+        private final int id;
+        private final int distance;
+        private final int overlap;
+        private final int length;
+
+        private Match(int id, int distance, int overlap, int length) {
+            this.id = id;
+            this.distance = distance;
+            this.overlap = overlap;
+            this.length = length;
+        }
+    }
+}
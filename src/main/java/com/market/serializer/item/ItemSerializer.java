@@ -4,14 +4,50 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.market.model.Item;
+import com.market.service.JsonFragmentCache;
+import com.market.service.ShopPageCache;
 import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
 
 public class ItemSerializer extends JsonSerializer<Item> {
 
+    // Injected when Jackson is configured by Spring; lets lists splice cached
+    // per-item JSON instead of serializing every item again
+    @Autowired(required = false)
+    JsonFragmentCache jsonFragmentCache;
+
+    @Autowired(required = false)
+    ShopPageCache shopPageCache;
+
     @Override
     public void serialize(Item item, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (jsonFragmentCache == null || shopPageCache == null
+                || item == null || item.getId() == null || item.getUpdatedAt() == null) {
+            write(item, gen);
+            return;
+        }
+        jsonFragmentCache.write(fragmentKey(item), gen, fragmentGen -> write(item, fragmentGen));
+    }
+
+    /**
+     * The item's own state, plus the shop version for the nested shop, category and
+     * town (bumped on shop and reference data writes) and whether the shop is
+     * rendered in full or as a stub.
+     */
+    private String fragmentKey(Item item) {
+        StringBuilder key = new StringBuilder("item|").append(item.getId())
+                .append('|').append(item.getUpdatedAt().getTime())
+                .append('|').append(item.getDeleted());
+        if (item.getShop() != null) {
+            key.append(Hibernate.isInitialized(item.getShop()) ? "|full|" : "|stub|")
+                    .append(shopPageCache.etag(item.getShop().getId()));
+        }
+        return key.toString();
+    }
+
+    private void write(Item item, JsonGenerator gen) throws IOException {
         gen.writeStartObject();
 
         if (item != null) {
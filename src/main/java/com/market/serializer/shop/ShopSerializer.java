@@ -3,15 +3,54 @@ package com.market.serializer.shop;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
+import com.market.model.Category;
 import com.market.model.Shop;
+import com.market.model.Town;
+import com.market.service.JsonFragmentCache;
+import com.market.service.ReferenceDataService;
+import com.market.service.ShopPageCache;
 import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
 
 public class ShopSerializer extends JsonSerializer<Shop> {
 
+    // Injected when Jackson is configured by Spring; lets town and category names
+    // come from the reference snapshot instead of a lazy load per shop
+    @Autowired(required = false)
+    ReferenceDataService referenceDataService;
+
+    // Likewise; lets lists splice cached per-shop JSON instead of serializing every shop again
+    @Autowired(required = false)
+    JsonFragmentCache jsonFragmentCache;
+
+    @Autowired(required = false)
+    ShopPageCache shopPageCache;
+
     @Override
     public void serialize(Shop shop, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (jsonFragmentCache == null || shopPageCache == null
+                || shop == null || shop.getId() == null || shop.getUpdatedAt() == null) {
+            write(shop, gen);
+            return;
+        }
+        jsonFragmentCache.write(fragmentKey(shop), gen, fragmentGen -> write(shop, fragmentGen));
+    }
+
+    /**
+     * The shop's own state, plus its version for the item count, category, town and
+     * owner (bumped on item, reference data and owner writes). The version is read
+     * before any of those are loaded, so a fragment is never older than its key.
+     */
+    private String fragmentKey(Shop shop) {
+        return "shop|" + shop.getId()
+                + "|" + shop.getUpdatedAt().getTime()
+                + "|" + shop.getDeleted()
+                + "|" + shopPageCache.etag(shop.getId());
+    }
+
+    private void write(Shop shop, JsonGenerator gen) throws IOException {
         gen.writeStartObject();
 
         if (shop != null) {
@@ -41,10 +80,12 @@ public class ShopSerializer extends JsonSerializer<Shop> {
             // Category
             if (shop.getCategory() != null) {
                 gen.writeFieldName("category");
-                if (Hibernate.isInitialized(shop.getCategory())) {
+                Category cached = Hibernate.isInitialized(shop.getCategory()) || referenceDataService == null
+                        ? null : referenceDataService.snapshot().getCategory(shop.getCategory().getId());
+                if (Hibernate.isInitialized(shop.getCategory()) || cached != null) {
                     gen.writeStartObject();
                     gen.writeNumberField("id", shop.getCategory().getId());
-                    gen.writeStringField("name", shop.getCategory().getName());
+                    gen.writeStringField("name", cached != null ? cached.getName() : shop.getCategory().getName());
                     gen.writeEndObject();
                 } else {
                     try {
@@ -64,10 +105,12 @@ public class ShopSerializer extends JsonSerializer<Shop> {
             // Town
             if (shop.getTown() != null) {
                 gen.writeFieldName("town");
-                if (Hibernate.isInitialized(shop.getTown())) {
+                Town cached = Hibernate.isInitialized(shop.getTown()) || referenceDataService == null
+                        ? null : referenceDataService.snapshot().getTown(shop.getTown().getId());
+                if (Hibernate.isInitialized(shop.getTown()) || cached != null) {
                     gen.writeStartObject();
                     gen.writeNumberField("id", shop.getTown().getId());
-                    gen.writeStringField("name", shop.getTown().getName());
+                    gen.writeStringField("name", cached != null ? cached.getName() : shop.getTown().getName());
                     gen.writeEndObject();
                 } else {
                     try {
@@ -0,0 +1,112 @@
+package com.market.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps the number of database-bound requests in flight, with a limit that adapts
+ * to observed latency: while responses take about as long as they do unloaded the
+ * limit grows, and once they slow down (queueing for connections or on MySQL) it
+ * shrinks in proportion. Requests over the limit are shed straight away instead
+ * of joining the queue, which keeps the connection pool free for the write paths.
+ * <p>
+ * The latency baseline is a slow moving average and the current latency a fast
+ * one; their ratio is the gradient applied to the limit, as in the Gradient2
+ * limiter of Netflix concurrency-limits. Samples taken while less than half the
+ * limit is in use say nothing about a higher limit and are ignored.
+ * <p>
+ * Publishes http.concurrency.limit, http.concurrency.inflight and
+ * http.concurrency.rejected.
+ */
+@Service
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SHORT_SMOOTHING = 0.1;
+    private static final double LONG_SMOOTHING = 0.002;
+    private static final double LIMIT_SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    private volatile int limit;
+    // Guarded by this
+    private double estimatedLimit;
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry,
+                                      @Value("${load-shedding.initial-limit:20}") int initialLimit,
+                                      @Value("${load-shedding.min-limit:4}") int minLimit,
+                                      @Value("${load-shedding.max-limit:100}") int maxLimit,
+                                      @Value("${load-shedding.rtt-tolerance:1.5}") double rttTolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+
+        this.rejected = Counter.builder("http.concurrency.rejected")
+                .description("Requests shed because the concurrency limit was reached").register(meterRegistry);
+        Gauge.builder("http.concurrency.limit", this, limiter -> limiter.limit)
+                .description("Current adaptive concurrency limit").register(meterRegistry);
+        Gauge.builder("http.concurrency.inflight", inFlight, AtomicInteger::get)
+                .description("Limited requests in flight").register(meterRegistry);
+    }
+
+    /**
+     * @return False if the limit is reached; otherwise the caller must call
+     * {@link #release(long)} when done
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param startNanos {@link System#nanoTime()} when the request was admitted
+     */
+    public void release(long startNanos) {
+        long rtt = System.nanoTime() - startNanos;
+        int inFlightBefore = inFlight.getAndDecrement();
+        update(rtt, inFlightBefore);
+    }
+
+    private synchronized void update(long rtt, int inFlightBefore) {
+        if (longRtt == 0) {
+            shortRtt = rtt;
+            longRtt = rtt;
+            return;
+        }
+        shortRtt += (rtt - shortRtt) * SHORT_SMOOTHING;
+        longRtt += (rtt - longRtt) * LONG_SMOOTHING;
+        // After a sustained slowdown the baseline lags behind; let it recover quickly
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        if (inFlightBefore < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit,
+                estimatedLimit * (1 - LIMIT_SMOOTHING) + newLimit * LIMIT_SMOOTHING));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -6,42 +6,39 @@ import com.market.dto.RegisterRequest;
 import com.market.model.User;
 import com.market.repository.UserRepository;
 import com.market.exception.UserAlreadyExistsException;
+import io.jsonwebtoken.JwtException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.Date;
+import java.util.List;
+
 @Service
 public class AuthService {
 
     @Autowired
     UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtService jwtService;
-    private final AuthenticationManager authenticationManager;
-    private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
 
     public AuthService(
-            PasswordEncoder passwordEncoder,
+            PasswordHashingService passwordHashingService,
             JwtService jwtService,
-            @Lazy AuthenticationManager authenticationManager,
-            CustomUserDetailsService userDetailsService
+            TokenRevocationService tokenRevocationService
     ) {
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.jwtService = jwtService;
-        this.authenticationManager = authenticationManager;
-        this.userDetailsService = userDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     public LoginResponse register(RegisterRequest request) {
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new UserAlreadyExistsException("username", request.getUsername());
-        }
-
-        if (userRepository.existsByPhone(request.getPhone())) {
+        // One read for both uniqueness checks; any row returned clashes on one of them
+        List<User> existing = userRepository.findByUsernameOrPhone(request.getUsername(), request.getPhone());
+        if (!existing.isEmpty()) {
+            if (existing.stream().anyMatch(u -> request.getUsername() != null && request.getUsername().equalsIgnoreCase(u.getUsername()))) {
+                throw new UserAlreadyExistsException("username", request.getUsername());
+            }
             throw new UserAlreadyExistsException("phone", request.getPhone());
         }
 
@@ -49,38 +46,50 @@ public class AuthService {
         user.setUsername(request.getUsername());
         user.setPhone(request.getPhone());
         user.setAdmin(request.getAdmin());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHashingService.encode(request.getPassword()));
         user.setShopLimit(request.getShopLimit());
 
         User savedUser = userRepository.save(user);
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(savedUser.getPhone());
-        String jwtToken = jwtService.generateToken(userDetails);
+        String jwtToken = jwtService.generateToken(savedUser);
 
         return new LoginResponse(jwtToken, savedUser.getId(), savedUser.getUsername(), savedUser.getPhone(), savedUser.getAdmin(), savedUser.getActive(), savedUser.getShopLimit());
     }
 
+    /**
+     * Loads the user once, verifies the password on the hashing pool and issues the
+     * token from the same row.
+     */
     public LoginResponse login(LoginRequest request) {
-        try {
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            request.getPhone(),
-                            request.getPassword()
-                    )
-            );
-        } catch (Exception e) {
+        User user = userRepository.findByPhone(request.getPhone()).orElse(null);
+        // An unknown phone costs one verification too, so it cannot be told apart by timing
+        if (!passwordHashingService.matches(request.getPassword(), user == null ? null : user.getPassword())) {
             throw new RuntimeException("Invalid phone number or password");
         }
-
-        User user = userRepository.findByPhone(request.getPhone())
-                .orElseThrow(() -> new RuntimeException("User not found"));
         if (user.getDeleted())
             throw new RuntimeException("This user has been deleted");
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(request.getPhone());
-        String jwtToken = jwtService.generateToken(userDetails);
+        String jwtToken = jwtService.generateToken(user);
 
         return new LoginResponse(jwtToken, user.getId(), user.getUsername(), user.getPhone(), user.getAdmin(), user.getActive(), user.getShopLimit());
     }
 
+    /**
+     * Revokes the token until it expires. Tokens that are invalid, already expired
+     * or issued without an id need no revocation and are ignored.
+     */
+    public void logout(String token) {
+        String jti;
+        Date expiresAt;
+        try {
+            jti = jwtService.extractTokenId(token);
+            expiresAt = jwtService.extractExpiration(token);
+        } catch (JwtException e) {
+            return;
+        }
+        if (jti != null && expiresAt != null) {
+            tokenRevocationService.revoke(jti, expiresAt);
+        }
+    }
+
 }
@@ -0,0 +1,71 @@
+package com.market.service;
+
+import com.market.model.User;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Principal of a request authenticated by JWT, built from the token claims so
+ * that identity and permission checks need no user lookup. Claims are only as
+ * fresh as the token: anything that must take effect on existing tokens (e.g. a
+ * delete) increments the user's token version, which revokes them.
+ */
+public class AuthenticatedUser implements AuthenticatedPrincipal, Serializable {
+
+    private final Long id;
+    private final String phone;
+    private final boolean admin;
+    private final boolean active;
+    private final long tokenVersion;
+
+    public AuthenticatedUser(Long id, String phone, boolean admin, boolean active, long tokenVersion) {
+        this.id = id;
+        this.phone = phone;
+        this.admin = admin;
+        this.active = active;
+        this.tokenVersion = tokenVersion;
+    }
+
+    public static AuthenticatedUser of(User user) {
+        return new AuthenticatedUser(user.getId(), user.getPhone(), Boolean.TRUE.equals(user.getAdmin()),
+                !Boolean.FALSE.equals(user.getActive()), user.getTokenVersion() == null ? 0 : user.getTokenVersion());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * The phone number, which is the username.
+     */
+    @Override
+    public String getName() {
+        return phone;
+    }
+
+    public boolean isAdmin() {
+        return admin;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return admin ? List.of(new SimpleGrantedAuthority("ROLE_ADMIN")) : Collections.emptyList();
+    }
+
+    @Override
+    public String toString() {
+        return phone;
+    }
+}
@@ -13,20 +13,41 @@ public class AuthenticationService {
     @Autowired
     UserRepository userRepository;
 
-    public User getCurrentUser() {
+    /**
+     * The principal of the current request, read from the token claims without a
+     * user lookup (except for tokens issued before the claims were added).
+     */
+    public AuthenticatedUser getCurrentPrincipal() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
         if (authentication == null || !authentication.isAuthenticated()) {
             throw new RuntimeException("User not authenticated");
         }
+        if (authentication.getPrincipal() instanceof AuthenticatedUser) {
+            return (AuthenticatedUser) authentication.getPrincipal();
+        }
 
         String phone = authentication.getName();// Phone number is used as username
         return userRepository.findByPhone(phone)
+                .map(AuthenticatedUser::of)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    /**
+     * Loads the current user; prefer {@link #getCurrentPrincipal()} when the id or
+     * admin flag is all that is needed.
+     */
+    public User getCurrentUser() {
+        return userRepository.findById(getCurrentUserId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
     public Long getCurrentUserId() {
-        return getCurrentUser().getId();
+        return getCurrentPrincipal().getId();
+    }
+
+    public boolean isAdmin() {
+        return getCurrentPrincipal().isAdmin();
     }
 
     public boolean isCurrentUser(Long userId) {
@@ -38,7 +59,7 @@ public class AuthenticationService {
     }
 
     public void requireAuthentication() {
-        getCurrentUser(); // This will throw exception if not authenticated
+        getCurrentPrincipal(); // This will throw exception if not authenticated
     }
 
     public void requireOwnership(Long ownerId) {
@@ -48,7 +69,7 @@ public class AuthenticationService {
     }
 
     public void adminUserCheck() {
-        if (!getCurrentUser().getAdmin()) {
+        if (!isAdmin()) {
             throw new RuntimeException("Unauthorized: Non-admin user");
         }
     }
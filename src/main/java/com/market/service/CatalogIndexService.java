@@ -0,0 +1,239 @@
+package com.market.service;
+
+import com.market.repository.ItemRepository;
+import com.market.repository.ShopRepository;
+import com.market.search.CatalogIndex;
+import com.market.search.FacetCounter;
+import com.market.search.IdPage;
+import com.market.search.ItemDocument;
+import com.market.search.ShopDocument;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Owns the in-memory {@link CatalogIndex} and keeps it in step with the database.
+ * The index is built once the application is ready; afterwards every item or shop
+ * write refreshes only the affected documents once its transaction commits.
+ */
+@Service
+public class CatalogIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogIndexService.class);
+
+    private final ItemRepository itemRepository;
+    private final ShopRepository shopRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private CatalogIndex index = new CatalogIndex();
+    private volatile boolean ready = false;
+
+    // Writes that land while a rebuild is loading are replayed on the fresh index
+    private boolean rebuilding = false;
+    private final Set<Long> pendingItems = new HashSet<>();
+    private final Set<Long> pendingShops = new HashSet<>();
+
+    public CatalogIndexService(ItemRepository itemRepository, ShopRepository shopRepository) {
+        this.itemRepository = itemRepository;
+        this.shopRepository = shopRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        setRebuilding();
+
+        CatalogIndex fresh = new CatalogIndex();
+        fresh.putAll(itemRepository.findIndexDocuments());
+        shopRepository.findIndexDocuments().forEach(fresh::putShop);
+
+        Set<Long> replayItems;
+        Set<Long> replayShops;
+        lock.writeLock().lock();
+        try {
+            index = fresh;
+            rebuilding = false;
+            replayItems = new HashSet<>(pendingItems);
+            replayShops = new HashSet<>(pendingShops);
+            pendingItems.clear();
+            pendingShops.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        replayShops.forEach(this::reloadShop);
+        replayItems.forEach(this::reloadItem);
+        ready = true;
+
+        logger.info("Catalog index built with {} items in {} ms", fresh.size(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Resolve the text part of an advanced search against the inverted index.
+     *
+     * @return Matching live item ids, or null if neither query has a searchable token or more
+     * than maxIds items match
+     */
+    public Set<Long> matchText(String name, String description, int maxIds) {
+        lock.readLock().lock();
+        try {
+            return index.matchText(name, description, maxIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Evaluate an advanced search entirely on the index bitmaps and return one
+     * page of ids in ascending id order.
+     *
+     * @return The page of ids with the exact total, or null if a text query has no searchable token
+     */
+    public IdPage searchIds(String name, String description, Double minPrice, Double maxPrice,
+                            Long categoryId, Long townId, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = index.filter(name, description, minPrice, maxPrice, categoryId, townId);
+            return matches == null ? null : CatalogIndex.page(matches, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Same as {@link #searchIds} but the page is cut in price order.
+     */
+    public IdPage searchIdsByPrice(String name, String description, Double minPrice, Double maxPrice,
+                                   Long categoryId, Long townId, boolean descending, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = index.filter(name, description, minPrice, maxPrice, categoryId, townId);
+            return matches == null ? null : index.pageByPrice(matches, minPrice, maxPrice, descending, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * One page of live item ids in a price range, in price order.
+     */
+    public IdPage searchIdsByPriceRange(Double minPrice, Double maxPrice, boolean descending, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.pageByPriceRange(minPrice, maxPrice, descending, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> searchItemNames(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.searchItemNames(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> searchShopNames(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.searchShopNames(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return False if a text query has no searchable token and the caller must fall back to SQL
+     */
+    public boolean collectFacets(String name, String description, FacetCounter counter) {
+        lock.readLock().lock();
+        try {
+            return index.collectFacets(name, description, counter);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Re-read a single item into the index once the current transaction commits.
+     */
+    public void refreshItem(Long itemId) {
+        afterCommit(() -> reloadItem(itemId));
+    }
+
+    /**
+     * Re-read a shop and every one of its items into the index once the current
+     * transaction commits. Used for shop creation, renaming, activation,
+     * relocation and deletion.
+     */
+    public void refreshShop(Long shopId) {
+        afterCommit(() -> reloadShop(shopId));
+    }
+
+    private void reloadItem(Long itemId) {
+        Optional<ItemDocument> document = itemRepository.findIndexDocumentById(itemId);
+
+        lock.writeLock().lock();
+        try {
+            index.remove(itemId);
+            document.ifPresent(index::put);
+            if (rebuilding) {
+                pendingItems.add(itemId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reloadShop(Long shopId) {
+        Optional<ShopDocument> shop = shopRepository.findIndexDocumentById(shopId);
+        List<ItemDocument> documents = itemRepository.findIndexDocumentsByShopId(shopId);
+
+        lock.writeLock().lock();
+        try {
+            index.removeShop(shopId);
+            shop.ifPresent(index::putShop);
+            documents.forEach(index::put);
+            if (rebuilding) {
+                pendingShops.add(shopId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setRebuilding() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        AfterCommit.run(() -> runSafely(action));
+    }
+
+    private void runSafely(Runnable action) {
+        try {
+            action.run();
+        } catch (Exception e) {
+            // The write itself succeeded; a stale index entry is corrected by the next refresh or rebuild
+            logger.error("Failed to refresh catalog index", e);
+        }
+    }
+}
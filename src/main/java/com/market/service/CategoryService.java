@@ -2,6 +2,8 @@ package com.market.service;
 
 import com.market.model.Category;
 import com.market.repository.CategoryRepository;
+import com.market.search.SuggestionType;
+import com.market.search.TextNormalizer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,9 +13,16 @@ import org.springframework.stereotype.Service;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final SuggestionService suggestionService;
+    private final ShopPageCache shopPageCache;
+    private final ReferenceDataService referenceDataService;
 
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, SuggestionService suggestionService,
+                           ShopPageCache shopPageCache, ReferenceDataService referenceDataService) {
         this.categoryRepository = categoryRepository;
+        this.suggestionService = suggestionService;
+        this.shopPageCache = shopPageCache;
+        this.referenceDataService = referenceDataService;
     }
 
     public Category createCategory(Category category) {
@@ -23,20 +32,51 @@ public class CategoryService {
         if (categoryRepository.existsByCode(category.getCode())) {
             throw new RuntimeException("Category code already exists");
         }
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        referenceDataService.invalidate();
+        suggestionService.markDirty(SuggestionType.CATEGORY);
+        return savedCategory;
     }
 
+    /**
+     * Managed entity, for updates. Read-only callers should use {@link #getCategory}.
+     */
     public Category getCategoryById(Long id) {
         return categoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Category not found"));
     }
 
+    /**
+     * Served from the reference snapshot; the result is shared and must not be modified.
+     */
+    public Category getCategory(Long id) {
+        Category category = referenceDataService.snapshot().getCategory(id);
+        if (category == null) {
+            throw new RuntimeException("Category not found");
+        }
+        return category;
+    }
+
+    /**
+     * Reference for associating a category with another entity, e.g. a shop, without loading it.
+     * Existence is checked against the reference snapshot.
+     */
+    public Category getCategoryReference(Long id) {
+        getCategory(id);
+        return categoryRepository.getReferenceById(id);
+    }
+
+    /**
+     * Served from the reference snapshot; the result is shared and must not be modified.
+     */
     public Category getCategoryByCode(String code) {
-        return categoryRepository.findByCode(code);
+        return referenceDataService.snapshot().getCategoryByCode(code);
     }
 
     public Page<Category> getAllCategories(Pageable pageable) {
-        return categoryRepository.findAll(pageable);
+        Page<Category> page = ReferenceDataService.page(referenceDataService.snapshot().getCategories(),
+                category -> true, pageable, Category::getName, Category::getCode);
+        return page != null ? page : categoryRepository.findAll(pageable);
     }
 
     public Category updateCategory(Long id, Category categoryDetails) {
@@ -58,14 +98,44 @@ public class CategoryService {
         category.setName(categoryDetails.getName());
         category.setCode(categoryDetails.getCode());
 
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        referenceDataService.invalidate();
+        suggestionService.markDirty(SuggestionType.CATEGORY);
+        // Category names are rendered inside shop profiles
+        shopPageCache.bumpAll();
+        return savedCategory;
     }
 
     public void deleteCategory(Long id) {
         categoryRepository.softDeleteById(id);
+        referenceDataService.invalidate();
+        suggestionService.markDirty(SuggestionType.CATEGORY);
+        shopPageCache.bumpAll();
     }
 
+    /**
+     * Case- and accent-insensitive substring search over the reference snapshot,
+     * or over name_normalized when the sort is not supported in memory.
+     */
     public Page<Category> getCategoryByContainingName(String name, Pageable pageable) {
-        return categoryRepository.findByContainName(name, pageable);
+        String normalized = TextNormalizer.normalize(name);
+        ReferenceDataService.Snapshot snapshot = referenceDataService.snapshot();
+        Page<Category> page = ReferenceDataService.page(snapshot.getCategories(),
+                category -> snapshot.getNormalizedCategoryName(category.getId()).contains(normalized),
+                pageable, Category::getName, Category::getCode);
+        return page != null ? page : categoryRepository.findByContainName(normalized, pageable);
+    }
+
+    /**
+     * Case- and accent-insensitive prefix search over the reference snapshot,
+     * or over the index on name_normalized when the sort is not supported in memory.
+     */
+    public Page<Category> getCategoriesByNamePrefix(String prefix, Pageable pageable) {
+        String normalized = TextNormalizer.normalize(prefix);
+        ReferenceDataService.Snapshot snapshot = referenceDataService.snapshot();
+        Page<Category> page = ReferenceDataService.page(snapshot.getCategories(),
+                category -> snapshot.getNormalizedCategoryName(category.getId()).startsWith(normalized),
+                pageable, Category::getName, Category::getCode);
+        return page != null ? page : categoryRepository.findByNameNormalizedStartingWith(normalized, pageable);
     }
 }
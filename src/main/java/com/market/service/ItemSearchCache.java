@@ -0,0 +1,165 @@
+package com.market.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.market.projection.ItemProjection;
+import com.market.projection.ItemSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Result cache for advanced item search, the hottest listing (items by shop are
+ * cached per shop version by {@link ShopPageCache}). Entries are bounded in
+ * number (Caffeine's frequency-aware eviction) and in age, and are evicted
+ * precisely on writes:
+ * <ul>
+ *     <li>an item write evicts the searches whose category and town filters
+ *     admit the item's shop;</li>
+ *     <li>a shop write evicts every search, since the previous category and town
+ *     of the shop are no longer known.</li>
+ * </ul>
+ * Eviction runs after commit. A load that overlaps an eviction is returned but
+ * not cached, so a stale result cannot outlive the write.
+ * <p>
+ * Hit ratio, size and evictions are published as the "item-search-results" cache
+ * metrics (/actuator/metrics/cache.gets etc.).
+ */
+@Service
+public class ItemSearchCache {
+
+    private final Cache<Key, Slice<ItemProjection>> cache;
+    private final SingleFlight<Key, Slice<ItemProjection>> loads;
+    private final AtomicLong generation = new AtomicLong();
+
+    public ItemSearchCache(@Value("${search.result-cache.max-entries:10000}") long maxEntries,
+                           @Value("${search.result-cache.ttl-seconds:60}") long ttlSeconds,
+                           MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "item-search-results");
+        this.loads = new SingleFlight<>("item-search-results", meterRegistry);
+    }
+
+    /**
+     * Concurrent misses for the same key share one load.
+     */
+    public Slice<ItemProjection> get(Key key, Supplier<Slice<ItemProjection>> loader) {
+        Slice<ItemProjection> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        return loads.execute(key, () -> load(key, loader));
+    }
+
+    private Slice<ItemProjection> load(Key key, Supplier<Slice<ItemProjection>> loader) {
+        long observed = generation.get();
+        Slice<ItemProjection> result = detach(loader.get());
+        if (generation.get() == observed) {
+            cache.put(key, result);
+            // An eviction may have slipped in between the check and the put
+            if (generation.get() != observed) {
+                cache.invalidate(key);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Results outlive the request and are shared between threads, so entity-backed
+     * projections are copied into plain immutable summaries.
+     */
+    private static Slice<ItemProjection> detach(Slice<ItemProjection> slice) {
+        List<ItemProjection> content = slice.getContent().stream()
+                .map(ItemSummary::of)
+                .collect(Collectors.toList());
+        if (slice instanceof Page) {
+            return new PageImpl<>(content, slice.getPageable(), ((Page<ItemProjection>) slice).getTotalElements());
+        }
+        return new SliceImpl<>(content, slice.getPageable(), slice.hasNext());
+    }
+
+    /**
+     * Evict every search an item of a shop in the given category and town can
+     * appear in, once the current transaction commits.
+     */
+    public void evictItem(Long categoryId, Long townId) {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            cache.asMap().keySet().removeIf(key -> key.admits(categoryId, townId));
+        });
+    }
+
+    /**
+     * Evict all searches once the current transaction commits. Used for shop
+     * creation, activation, relocation and deletion.
+     */
+    public void evictShop() {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            cache.invalidateAll();
+        });
+    }
+
+    /**
+     * Cache key: the scope used for eviction plus everything else that shapes the result.
+     */
+    public static final class Key {
+        private final Long categoryId;
+        private final Long townId;
+        private final String query;
+
+        private Key(Long categoryId, Long townId, String query) {
+            this.categoryId = categoryId;
+            this.townId = townId;
+            this.query = query;
+        }
+
+        /**
+         * @param filters Remaining filters, already normalized by the caller
+         */
+        public static Key advanced(Long categoryId, Long townId, String filters, Pageable pageable, boolean withTotal) {
+            return new Key(categoryId, townId, filters + "|" + pageable.getOffset() + "|" + pageable.getPageSize()
+                    + "|" + pageable.getSort() + "|" + withTotal);
+        }
+
+        private boolean admits(Long itemCategoryId, Long itemTownId) {
+            return (categoryId == null || categoryId.equals(itemCategoryId))
+                    && (townId == null || townId.equals(itemTownId));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(categoryId, key.categoryId) && Objects.equals(townId, key.townId)
+                    && query.equals(key.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(categoryId, townId, query);
+        }
+    }
+}
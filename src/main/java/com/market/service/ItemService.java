@@ -1,16 +1,35 @@
 package com.market.service;
 
+import com.market.dto.CursorPage;
+import com.market.dto.ItemFacets;
 import com.market.model.Item;
 import com.market.model.Shop;
 import com.market.projection.ItemProjection;
+import com.market.projection.VersionStamp;
 import com.market.repository.ItemRepository;
+import com.market.repository.ItemSpecifications;
 import com.market.exception.ItemLimitExceededException;
+import com.market.search.FacetCounter;
+import com.market.search.IdPage;
+import com.market.search.InvertedIndex;
+import com.market.search.KeysetCursor;
+import com.market.search.SuggestionType;
+import com.market.search.TextNormalizer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ItemService {
@@ -19,18 +38,42 @@ public class ItemService {
     private final MediaStorageService mediaStorageService;
     private final FileStorageService fileStorageService;
     private final ShopService shopService;
-
-    public ItemService(ItemRepository itemRepository, MediaStorageService mediaStorageService, FileStorageService fileStorageService, ShopService shopService) {
+    private final CatalogIndexService catalogIndexService;
+    private final SearchCountCache searchCountCache;
+    private final SuggestionService suggestionService;
+    private final ItemSearchCache itemSearchCache;
+    private final ShopPageCache shopPageCache;
+    private final double[] facetPriceBounds;
+    private final int maxTextIds;
+
+    public ItemService(ItemRepository itemRepository, MediaStorageService mediaStorageService, FileStorageService fileStorageService,
+                       ShopService shopService, CatalogIndexService catalogIndexService, SearchCountCache searchCountCache,
+                       SuggestionService suggestionService, ItemSearchCache itemSearchCache, ShopPageCache shopPageCache,
+                       @Value("${search.facets.price-bounds:10,50,100,500,1000,5000}") double[] facetPriceBounds,
+                       @Value("${search.index.max-text-ids:1000}") int maxTextIds) {
         this.itemRepository = itemRepository;
         this.mediaStorageService = mediaStorageService;
         this.fileStorageService = fileStorageService;
         this.shopService = shopService;
+        this.catalogIndexService = catalogIndexService;
+        this.searchCountCache = searchCountCache;
+        this.suggestionService = suggestionService;
+        this.itemSearchCache = itemSearchCache;
+        this.shopPageCache = shopPageCache;
+        this.facetPriceBounds = facetPriceBounds.clone();
+        Arrays.sort(this.facetPriceBounds);
+        this.maxTextIds = maxTextIds;
     }
 
     public Item createItem(Item item) {
         // Validate item limit before creating
         validateItemLimit(item.getShop().getId());
-        return itemRepository.save(item);
+        Item savedItem = itemRepository.save(item);
+        catalogIndexService.refreshItem(savedItem.getId());
+        evictCachedResults(shopService.getShopById(item.getShop().getId()));
+        // Shop suggestions are weighted by their item counts
+        suggestionService.markDirty(SuggestionType.ITEM, SuggestionType.SHOP);
+        return savedItem;
     }
 
     public Item getItemById(Long id) {
@@ -46,28 +89,59 @@ public class ItemService {
         return itemRepository.findAll(pageable);
     }
 
+    /**
+     * Validator for conditional GET on the listings over all items. Every item write
+     * bumps its shop's version after commit, so the version across all shops covers
+     * them without a query.
+     */
+    public VersionStamp getAllItemsVersion() {
+        return VersionStamp.of(shopPageCache.version());
+    }
+
     public List<Item> getItemsByShop(Long shopId) {
         return itemRepository.findByShopId(shopId);
     }
 
-    public Page<ItemProjection> getAvailableItemsByShop(Long shopId, Pageable pageable) {
-        return itemRepository.findByShopIdAndDeletedFalse(shopId, pageable);
+    /**
+     * Results are cached per shop version by {@link ShopPageCache}, so the total is
+     * counted exactly: an approximate one would be pinned to the version.
+     *
+     * @param withTotal When false, returns a Slice and skips counting entirely
+     */
+    public Slice<ItemProjection> getAvailableItemsByShop(Long shopId, Pageable pageable, boolean withTotal) {
+        Slice<ItemProjection> slice = itemRepository.findByShopIdAndDeletedFalse(shopId, pageable);
+        if (!withTotal) {
+            return slice;
+        }
+        return new PageImpl<>(slice.getContent(), pageable, itemRepository.countByShopIdAndDeletedFalse(shopId));
     }
 
     public List<Item> searchItemsByDescription(String description) {
-        return itemRepository.findByDescriptionContainingIgnoreCase(description);
+        return itemRepository.findByDescriptionNormalizedContaining(TextNormalizer.normalize(description));
     }
 
     public Page<Item> searchItemsByDescription(String description, Pageable pageable) {
-        return itemRepository.findByDescriptionContainingIgnoreCase(description, pageable);
+        return itemRepository.findByDescriptionNormalizedContaining(TextNormalizer.normalize(description), pageable);
     }
 
     public List<Item> getItemsByPriceRange(Double minPrice, Double maxPrice) {
         return itemRepository.findByPriceBetween(minPrice, maxPrice);
     }
 
+    /**
+     * Served from the sorted price index when the request is unsorted or sorted by
+     * price alone, and otherwise by a query; either way only live items are returned.
+     */
     public Page<Item> getItemsByPriceRange(Double minPrice, Double maxPrice, Pageable pageable) {
-        return itemRepository.findByPriceBetween(minPrice, maxPrice, pageable);
+        Sort.Order priceOrder = priceOrder(pageable.getSort());
+        if (catalogIndexService.isReady() && (pageable.getSort().isUnsorted() || priceOrder != null)) {
+            IdPage page = catalogIndexService.searchIdsByPriceRange(minPrice, maxPrice,
+                    priceOrder != null && priceOrder.isDescending(), pageable.getOffset(), pageable.getPageSize());
+            return new PageImpl<>(findItemsInOrder(page.getIds()), pageable, page.getTotal());
+        }
+        // Same live-item rule as the index, so the sort and index state never change the result set
+        return itemRepository.findAll(
+                ItemSpecifications.advancedSearch(null, null, minPrice, maxPrice, null, null, null), pageable);
     }
 
     public Item updateItem(Long id, Item itemDetails) {
@@ -86,11 +160,23 @@ public class ItemService {
             item.setImageKeys(itemDetails.getImageKeys());
         }
 
-        return itemRepository.save(item);
+        Item savedItem = itemRepository.save(item);
+        catalogIndexService.refreshItem(id);
+        evictCachedResults(savedItem.getShop());
+        suggestionService.markDirty(SuggestionType.ITEM, SuggestionType.SHOP);
+        return savedItem;
     }
 
     public void deleteItem(Long id) {
+        Optional<Shop> shop = itemRepository.findById(id).map(Item::getShop);
+        if (shop.isEmpty()) {
+            // Deleting an unknown item is a silent no-op, as it always was
+            return;
+        }
         itemRepository.softDeleteById(id);
+        catalogIndexService.refreshItem(id);
+        evictCachedResults(shop.get());
+        suggestionService.markDirty(SuggestionType.ITEM, SuggestionType.SHOP);
     }
 
     // Media management methods
@@ -147,19 +233,317 @@ public class ItemService {
         return getRemainingItemSlots(shopId) > 0;
     }
 
-    public Page<ItemProjection> searchItemsAdvanced(
+    /**
+     * Name and description match word prefixes: each query word must start a word
+     * of the field, on the catalog index and in SQL alike.
+     *
+     * @param withTotal When false, returns a Slice and skips counting entirely;
+     *                  when true, the total comes from {@link SearchCountCache}
+     */
+    public Slice<ItemProjection> searchItemsAdvanced(
+            String name,
+            String description,
+            Double minPrice,
+            Double maxPrice,
+            Long categoryId,
+            Long townId,
+            Pageable pageable,
+            boolean withTotal
+    ) {
+        // Text filters are cached by their normalized form, so spelling variants share an entry.
+        // The loader is handed that same normalized text, so the key always describes what it loads.
+        String normalizedName = normalizeOrNull(name);
+        String normalizedDescription = normalizeOrNull(description);
+        String filters = SearchCountCache.key(normalizedName, normalizedDescription, minPrice, maxPrice);
+        return itemSearchCache.get(ItemSearchCache.Key.advanced(categoryId, townId, filters, pageable, withTotal),
+                () -> loadItemsAdvanced(normalizedName, normalizedDescription, minPrice, maxPrice, categoryId, townId,
+                        pageable, withTotal));
+    }
+
+    private Slice<ItemProjection> loadItemsAdvanced(
+            String name,
+            String description,
+            Double minPrice,
+            Double maxPrice,
+            Long categoryId,
+            Long townId,
+            Pageable pageable,
+            boolean withTotal
+    ) {
+        // Unsorted and price-sorted requests are answered by the index bitmaps and
+        // the sorted price index; only the requested page is loaded from the database
+        if (catalogIndexService.isReady()) {
+            Sort.Order priceOrder = priceOrder(pageable.getSort());
+            IdPage page = null;
+            if (pageable.getSort().isUnsorted()) {
+                page = catalogIndexService.searchIds(name, description, minPrice, maxPrice, categoryId, townId,
+                        pageable.getOffset(), pageable.getPageSize());
+            } else if (priceOrder != null) {
+                page = catalogIndexService.searchIdsByPrice(name, description, minPrice, maxPrice, categoryId, townId,
+                        priceOrder.isDescending(), pageable.getOffset(), pageable.getPageSize());
+            }
+            if (page != null) {
+                List<ItemProjection> content = findProjectionsInOrder(page.getIds());
+                if (withTotal) {
+                    return new PageImpl<>(content, pageable, page.getTotal());
+                }
+                return new SliceImpl<>(content, pageable, pageable.getOffset() + pageable.getPageSize() < page.getTotal());
+            }
+        }
+
+        Set<Long> ids = resolveTextIds(name, description);
+        if (ids != null && ids.isEmpty()) {
+            if (withTotal) {
+                return Page.empty(pageable);
+            }
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
+
+        Specification<Item> spec = ItemSpecifications.advancedSearch(name, description, minPrice, maxPrice, categoryId, townId, ids);
+        Slice<Long> idSlice = itemRepository.findIds(spec, pageable);
+        List<ItemProjection> content = findProjectionsInOrder(idSlice.getContent());
+        if (!withTotal) {
+            return new SliceImpl<>(content, pageable, idSlice.hasNext());
+        }
+
+        String key = SearchCountCache.key("items-advanced", name, description, minPrice, maxPrice, categoryId, townId);
+        long total = searchCountCache.get(key, () -> itemRepository.count(spec));
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Prefix variant of {@link #searchItemsAdvanced}: the name must start with the
+     * given text (after normalization), which MySQL serves from the index on
+     * _items(name_normalized). The other filters apply as usual.
+     */
+    public Slice<ItemProjection> searchItemsByNamePrefix(
             String name,
             String description,
             Double minPrice,
             Double maxPrice,
             Long categoryId,
             Long townId,
-            Pageable pageable
+            Pageable pageable,
+            boolean withTotal
+    ) {
+        String prefix = TextNormalizer.normalize(name);
+        Specification<Item> spec = ItemSpecifications.advancedSearch(null, description, minPrice, maxPrice, categoryId, townId, null);
+        if (!prefix.isEmpty()) {
+            spec = spec.and(ItemSpecifications.nameStartsWith(prefix));
+        }
+        Specification<Item> search = spec;
+
+        Slice<Long> idSlice = itemRepository.findIds(search, pageable);
+        List<ItemProjection> content = findProjectionsInOrder(idSlice.getContent());
+        if (!withTotal) {
+            return new SliceImpl<>(content, pageable, idSlice.hasNext());
+        }
+        String key = SearchCountCache.key("items-prefix", prefix, description, minPrice, maxPrice, categoryId, townId);
+        long total = searchCountCache.get(key, () -> itemRepository.count(search));
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Per-category, per-town and price-histogram counts for the filters of
+     * {@link #searchItemsAdvanced}, computed in one pass over the catalog index.
+     * While the index is loading the counts come from aggregate queries, one per
+     * facet, so no item rows are loaded.
+     */
+    public ItemFacets getItemFacets(
+            String name,
+            String description,
+            Double minPrice,
+            Double maxPrice,
+            Long categoryId,
+            Long townId
     ) {
-        return itemRepository.searchItemsAdvanced(name, description, minPrice, maxPrice, categoryId, townId, pageable);
+        FacetCounter counter = new FacetCounter(minPrice, maxPrice, categoryId, townId, facetPriceBounds);
+        if (catalogIndexService.isReady() && catalogIndexService.collectFacets(name, description, counter)) {
+            return counter.result();
+        }
+
+        // Each dimension is counted with every filter except its own
+        return FacetCounter.facets(
+                itemRepository.count(ItemSpecifications.advancedSearch(
+                        name, description, minPrice, maxPrice, categoryId, townId, null)),
+                itemRepository.countByCategory(ItemSpecifications.advancedSearch(
+                        name, description, minPrice, maxPrice, null, townId, null)),
+                itemRepository.countByTown(ItemSpecifications.advancedSearch(
+                        name, description, minPrice, maxPrice, categoryId, null, null)),
+                facetPriceBounds,
+                itemRepository.countByPriceBucket(ItemSpecifications.advancedSearch(
+                        name, description, null, null, categoryId, townId, null), facetPriceBounds));
+    }
+
+    /**
+     * Typo-tolerant item name search over the catalog trigram index, best match
+     * first. Falls back to the word-prefix match of {@link #searchItemsAdvanced}
+     * while the index is loading.
+     */
+    public List<ItemProjection> searchItemsFuzzy(String name, int size) {
+        if (!catalogIndexService.isReady()) {
+            Specification<Item> spec = ItemSpecifications.advancedSearch(name, null, null, null, null, null, null);
+            return findProjectionsInOrder(itemRepository.findIds(spec, PageRequest.of(0, size)).getContent());
+        }
+        return findProjectionsInOrder(catalogIndexService.searchItemNames(name, size));
+    }
+
+    /**
+     * Relevance-ranked variant of {@link #searchItemsAdvanced} served by the MySQL
+     * FULLTEXT index. Falls back to the regular search when the query has no
+     * term long enough for the ngram parser.
+     *
+     * @param withTotal When false, returns a Slice and skips counting entirely;
+     *                  when true, the total comes from {@link SearchCountCache}
+     */
+    public Slice<ItemProjection> searchItemsFullText(
+            String name,
+            String description,
+            Double minPrice,
+            Double maxPrice,
+            Long categoryId,
+            Long townId,
+            Pageable pageable,
+            boolean withTotal
+    ) {
+        String query = toBooleanModeQuery(name, description);
+        if (query == null) {
+            return searchItemsAdvanced(name, description, minPrice, maxPrice, categoryId, townId, pageable, withTotal);
+        }
+
+        // Relevance defines the order, so any client-supplied sort is ignored
+        Slice<Long> ids = itemRepository.searchItemIdsFullText(query, minPrice, maxPrice, categoryId, townId,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        List<ItemProjection> content = findProjectionsInOrder(ids.getContent());
+        if (!withTotal) {
+            return new SliceImpl<>(content, pageable, ids.hasNext());
+        }
+
+        String key = SearchCountCache.key("items-fulltext", query, minPrice, maxPrice, categoryId, townId);
+        long total = searchCountCache.get(key,
+                () -> itemRepository.countItemsFullText(query, minPrice, maxPrice, categoryId, townId));
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Keyset-paginated variant of {@link #searchItemsAdvanced}, ordered by (price, id).
+     * Seeking past the cursor keeps deep scrolling as cheap as the first window.
+     */
+    public CursorPage<ItemProjection> scrollItemsAdvanced(
+            String name,
+            String description,
+            Double minPrice,
+            Double maxPrice,
+            Long categoryId,
+            Long townId,
+            String cursor,
+            int size
+    ) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        Double afterPrice = position == null ? null : position.getKey();
+        Long afterId = position == null ? null : position.getId();
+        if (position != null && afterPrice == null) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        Set<Long> ids = resolveTextIds(name, description);
+        if (ids != null && ids.isEmpty()) {
+            return new CursorPage<>(List.of(), null, size, false);
+        }
+
+        Specification<Item> spec = ItemSpecifications.advancedSearch(name, description, minPrice, maxPrice, categoryId, townId, ids);
+        if (position != null) {
+            spec = spec.and(ItemSpecifications.afterPriceAndId(afterPrice, afterId));
+        }
+        List<Long> rowIds = itemRepository.findIds(spec, PageRequest.of(0, size + 1, Sort.by("price", "id"))).getContent();
+        return CursorPage.of(findProjectionsInOrder(rowIds), size, item -> new KeysetCursor(item.getPrice(), item.getId()));
+    }
+
+    public CursorPage<ItemProjection> scrollAvailableItemsByShop(Long shopId, String cursor, int size) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<ItemProjection> rows = itemRepository.findByShopIdAndDeletedFalseAndIdGreaterThanOrderByIdAsc(
+                shopId, position == null ? 0L : position.getId(), PageRequest.of(0, size + 1));
+        return CursorPage.of(rows, size, item -> new KeysetCursor(null, item.getId()));
     }
 
     public List<ItemProjection> getItemsByIdsList(List<String> list) {
         return itemRepository.findByIdIn(list);
     }
+
+    /**
+     * Resolve the text part of a search from the in-memory inverted index instead
+     * of LIKE scans. A broad query (e.g. one letter) would bind an IN list as large
+     * as the catalog, so above search.index.max-text-ids the SQL text predicates
+     * are used instead; both paths apply the same matching rules.
+     *
+     * @return Candidate ids, or null when the SQL text predicates must be used instead
+     */
+    private Set<Long> resolveTextIds(String name, String description) {
+        if (!catalogIndexService.isReady() || (!StringUtils.hasText(name) && !StringUtils.hasText(description))) {
+            return null;
+        }
+        return catalogIndexService.matchText(name, description, maxTextIds);
+    }
+
+    /**
+     * Build a MATCH ... AGAINST boolean-mode expression requiring every term.
+     * Tokenizing strips all boolean operators from user input.
+     */
+    private String toBooleanModeQuery(String name, String description) {
+        Set<String> terms = new LinkedHashSet<>();
+        terms.addAll(InvertedIndex.tokenize(name));
+        terms.addAll(InvertedIndex.tokenize(description));
+
+        // Terms shorter than the default ngram_token_size (2) cannot be matched
+        String query = terms.stream()
+                .filter(term -> term.length() >= 2)
+                .map(term -> "+" + term)
+                .collect(Collectors.joining(" "));
+        return query.isEmpty() ? null : query;
+    }
+
+    private void evictCachedResults(Shop shop) {
+        shopPageCache.bump(shop.getId());
+        itemSearchCache.evictItem(shop.getCategory() != null ? shop.getCategory().getId() : null,
+                shop.getTown() != null ? shop.getTown().getId() : null);
+    }
+
+    private static String normalizeOrNull(String text) {
+        String normalized = TextNormalizer.normalize(text);
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    /**
+     * @return The single price order of the sort, or null if it sorts by anything else
+     */
+    private Sort.Order priceOrder(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        if (orders.size() == 1 && "price".equals(orders.get(0).getProperty())) {
+            return orders.get(0);
+        }
+        return null;
+    }
+
+    private List<Item> findItemsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Item> byId = itemRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private List<ItemProjection> findProjectionsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ItemProjection> byId = itemRepository.findProjectedByIdIn(ids).stream()
+                .collect(Collectors.toMap(ItemProjection::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 }
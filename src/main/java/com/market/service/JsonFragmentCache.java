@@ -0,0 +1,78 @@
+package com.market.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Pre-encoded UTF-8 JSON of single entities, spliced into the enclosing document
+ * (a page, a list, a parent entity) as raw values instead of being serialized
+ * again on every request.
+ * <p>
+ * Keys are built by the serializers from the state the fragment was rendered
+ * from (id, updatedAt, deleted and the {@link ShopPageCache} version of the
+ * shop for derived and nested parts), so a changed entity is simply asked for
+ * under a new key and stale fragments age out; nothing is evicted on writes.
+ * <p>
+ * Published as the "json-fragments" cache metrics.
+ */
+@Service
+public class JsonFragmentCache {
+
+    private final Cache<String, SerializedString> fragments;
+
+    public JsonFragmentCache(MeterRegistry meterRegistry,
+                             @Value("${json.fragment-cache.max-bytes:33554432}") long maxBytes,
+                             @Value("${json.fragment-cache.ttl-minutes:60}") long ttlMinutes) {
+        this.fragments = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<String, SerializedString>weigher((key, fragment) -> fragment.asUnquotedUTF8().length)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, fragments, "json-fragments");
+    }
+
+    /**
+     * Writes the fragment for the key as the next value of gen, rendering it with
+     * the renderer on a miss.
+     *
+     * @param renderer Writes exactly one JSON value; called with a generator of the
+     *                 same codec as gen on a miss, or with gen itself if it has none
+     */
+    public void write(String key, JsonGenerator gen, Renderer renderer) throws IOException {
+        SerializedString fragment = fragments.getIfPresent(key);
+        if (fragment == null) {
+            ObjectCodec codec = gen.getCodec();
+            if (codec == null) {
+                renderer.render(gen);
+                return;
+            }
+            ByteArrayBuilder out = new ByteArrayBuilder();
+            try (JsonGenerator fragmentGen = codec.getFactory().createGenerator(out)) {
+                renderer.render(fragmentGen);
+            }
+            fragment = new SerializedString(new String(out.toByteArray(), StandardCharsets.UTF_8));
+            // Encode once here so every hit writes the bytes directly
+            fragment.asUnquotedUTF8();
+            fragments.put(key, fragment);
+        }
+        gen.writeRawValue(fragment);
+    }
+
+    @FunctionalInterface
+    public interface Renderer {
+        void render(JsonGenerator gen) throws IOException;
+    }
+}
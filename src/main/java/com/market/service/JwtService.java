@@ -1,8 +1,14 @@
 package com.market.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.market.model.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -11,16 +17,56 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
-    @Value("${jwt.secret:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}")
-    private String secretKey;
+    // Claims of the principal, see AuthenticatedUser
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_ADMIN = "adm";
+    private static final String CLAIM_ACTIVE = "act";
+    private static final String CLAIM_TOKEN_VERSION = "ver";
 
-    @Value("${jwt.expiration:86400000}") // 24 hours
-    private long jwtExpiration;
+    private final long jwtExpiration;
+    private final Key signInKey;
+    private final JwtParser parser;
+    // Token to its verified claims, dropped at the token's expiry. Keyed by the token
+    // itself: a hit needs an exact match, and a String hash is far cheaper than a digest
+    private final Cache<String, Claims> verified;
+
+    public JwtService(@Value("${jwt.secret:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}") String secretKey,
+                      @Value("${jwt.expiration:86400000}") long jwtExpiration, // 24 hours
+                      @Value("${jwt.verified-cache.max-entries:10000}") long verifiedCacheSize,
+                      MeterRegistry meterRegistry) {
+        this.jwtExpiration = jwtExpiration;
+        // Key and parser are immutable and thread-safe: built once, not per call
+        this.signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.parser = Jwts.parserBuilder().setSigningKey(signInKey).build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        return untilExpiry(claims);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return untilExpiry(claims);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "verified-tokens");
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -36,21 +82,56 @@ public class JwtService {
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
-        return buildToken(extraClaims, userDetails, jwtExpiration);
+        return buildToken(extraClaims, userDetails.getUsername(), jwtExpiration);
+    }
+
+    /**
+     * Token carrying the claims of {@link AuthenticatedUser}, so requests presenting
+     * it are authenticated without loading the user.
+     */
+    public String generateToken(User user) {
+        AuthenticatedUser principal = AuthenticatedUser.of(user);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_USER_ID, principal.getId());
+        claims.put(CLAIM_ADMIN, principal.isAdmin());
+        claims.put(CLAIM_ACTIVE, principal.isActive());
+        claims.put(CLAIM_TOKEN_VERSION, principal.getTokenVersion());
+        return buildToken(claims, principal.getName(), jwtExpiration);
+    }
+
+    /**
+     * Verifies the token once and reads the principal from its claims.
+     *
+     * @return The principal, or null for tokens issued without its claims
+     * @throws JwtException If the token is malformed, badly signed or expired
+     */
+    public AuthenticatedUser extractAuthenticatedUser(String token) {
+        Claims claims = extractAllClaims(token);
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        Long tokenVersion = claims.get(CLAIM_TOKEN_VERSION, Long.class);
+        if (userId == null || tokenVersion == null) {
+            return null;
+        }
+        return new AuthenticatedUser(userId, claims.getSubject(),
+                Boolean.TRUE.equals(claims.get(CLAIM_ADMIN, Boolean.class)),
+                !Boolean.FALSE.equals(claims.get(CLAIM_ACTIVE, Boolean.class)),
+                tokenVersion);
     }
 
     private String buildToken(
             Map<String, Object> extraClaims,
-            UserDetails userDetails,
+            String subject,
             long expiration
     ) {
         return Jwts
                 .builder()
                 .setClaims(extraClaims)
-                .setSubject(userDetails.getUsername())
+                .setSubject(subject)
+                // Token id, the handle for revocation
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -63,21 +144,38 @@ public class JwtService {
         return extractExpiration(token).before(new Date());
     }
 
-    private Date extractExpiration(String token) {
+    /**
+     * @return Null for tokens issued without an id
+     */
+    public String extractTokenId(String token) {
+        return extractClaim(token, Claims::getId);
+    }
+
+    public Date extractExpiration(String token) {
         return extractClaim(token, Claims::getExpiration);
     }
 
+    /**
+     * Parses and verifies the token, or returns the claims of an earlier verification
+     * of the same token. The claims are shared: never modify them.
+     */
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = verified.getIfPresent(token);
+        // Expiry is also checked here: the cache may hold an entry slightly past it
+        if (claims != null && (claims.getExpiration() == null || claims.getExpiration().after(new Date()))) {
+            return claims;
+        }
+        // Throws for malformed, badly signed or expired tokens, which are never cached
+        claims = parser.parseClaimsJws(token).getBody();
+        verified.put(token, claims);
+        return claims;
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static long untilExpiry(Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiration.getTime() - System.currentTimeMillis()));
     }
 }
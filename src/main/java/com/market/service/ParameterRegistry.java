@@ -0,0 +1,158 @@
+package com.market.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.market.model.Parameter;
+import com.market.repository.ParameterRepository;
+import com.market.setup.Setup;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+
+/**
+ * Immutable snapshot of all parameters, indexed by code, with the public
+ * initial-info document pre-rendered to JSON bytes. Loaded when the application
+ * is ready, dropped after any parameter write commits and reloaded whole by the
+ * next reader, so the hot /public/initial-info path never queries or serializes.
+ * <p>
+ * The initial-info ETag is a hash of the rendered bytes, so it is stable across
+ * restarts and instances and only changes when the document does.
+ */
+@Service
+public class ParameterRegistry {
+
+    private static final List<String> INITIAL_INFO_CODES = Arrays.asList(Setup.Parameter.BASE_URL,
+            Setup.Parameter.IMAGE_BASE_URL,
+            Setup.Parameter.CHECK_AFTER,
+            Setup.Parameter.NOTIFICATION_ALARM,
+            Setup.Parameter.ITEM_IMAGE_NUMBER,
+            Setup.Parameter.WHATSAPP_ICON_DISPLAY);
+
+    private final ParameterRepository parameterRepository;
+    private final ObjectMapper objectMapper;
+    private final SnapshotHolder<Snapshot> snapshot = new SnapshotHolder<>(this::load);
+
+    public ParameterRegistry(ParameterRepository parameterRepository, ObjectMapper objectMapper) {
+        this.parameterRepository = parameterRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        snapshot();
+    }
+
+    public Snapshot snapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Drop the snapshot once the current transaction commits.
+     */
+    public void invalidate() {
+        snapshot.invalidate();
+    }
+
+    private Snapshot load() {
+        Map<String, Parameter> byCode = new HashMap<>();
+        for (Parameter parameter : parameterRepository.findAll()) {
+            if (parameter.getCode() != null) {
+                byCode.put(parameter.getCode(), copy(parameter));
+            }
+        }
+
+        // Fixed key order keeps the rendered bytes, and so the ETag, stable
+        Map<String, Object> initialInfo = new LinkedHashMap<>();
+        for (String code : INITIAL_INFO_CODES) {
+            Parameter parameter = byCode.get(code);
+            if (parameter != null && StringUtils.hasText(parameter.getValue())) {
+                initialInfo.put(code, parameter.getValue());
+            }
+        }
+        byte[] initialInfoJson;
+        try {
+            initialInfoJson = objectMapper.writeValueAsBytes(initialInfo);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to render initial info: " + e.getMessage());
+        }
+
+        return new Snapshot(byCode, Collections.unmodifiableMap(initialInfo), initialInfoJson);
+    }
+
+    private static Parameter copy(Parameter parameter) {
+        Parameter copy = new Parameter();
+        copy.setId(parameter.getId());
+        copy.setName(parameter.getName());
+        copy.setCode(parameter.getCode());
+        copy.setValue(parameter.getValue());
+        copy.setDeleted(parameter.getDeleted());
+        copy.setCreatedAt(parameter.getCreatedAt());
+        copy.setUpdatedAt(parameter.getUpdatedAt());
+        return copy;
+    }
+
+    public static final class Snapshot {
+        private final Map<String, Parameter> byCode;
+        private final Map<String, Object> initialInfo;
+        private final byte[] initialInfoJson;
+        private final String initialInfoEtag;
+
+        private Snapshot(Map<String, Parameter> byCode, Map<String, Object> initialInfo, byte[] initialInfoJson) {
+            this.byCode = byCode;
+            this.initialInfo = initialInfo;
+            this.initialInfoJson = initialInfoJson;
+            this.initialInfoEtag = "\"" + DigestUtils.md5DigestAsHex(initialInfoJson) + "\"";
+        }
+
+        /**
+         * @return Shared detached copy, or null if no parameter has the code; must not be modified
+         */
+        public Parameter get(String code) {
+            return byCode.get(code);
+        }
+
+        public String getString(String code, String defaultValue) {
+            Parameter parameter = byCode.get(code);
+            return parameter != null && StringUtils.hasText(parameter.getValue()) ? parameter.getValue() : defaultValue;
+        }
+
+        public int getInt(String code, int defaultValue) {
+            String value = getString(code, null);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+
+        public boolean getBoolean(String code, boolean defaultValue) {
+            String value = getString(code, null);
+            return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+        }
+
+        public Map<String, Object> getInitialInfo() {
+            return initialInfo;
+        }
+
+        /**
+         * Pre-rendered JSON of {@link #getInitialInfo()}; shared, must not be modified.
+         */
+        public byte[] getInitialInfoJson() {
+            return initialInfoJson;
+        }
+
+        /**
+         * Strong ETag of {@link #getInitialInfoJson()}, quoted.
+         */
+        public String getInitialInfoEtag() {
+            return initialInfoEtag;
+        }
+    }
+}
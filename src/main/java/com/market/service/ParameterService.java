@@ -10,10 +10,12 @@ import org.springframework.stereotype.Service;
 public class ParameterService {
 
     private final ParameterRepository parameterRepository;
+    private final ParameterRegistry parameterRegistry;
 
     // Constructor-based dependency injection
-    ParameterService(ParameterRepository parameterRepository) {
+    ParameterService(ParameterRepository parameterRepository, ParameterRegistry parameterRegistry) {
         this.parameterRepository = parameterRepository;
+        this.parameterRegistry = parameterRegistry;
     }
 
     /**
@@ -28,7 +30,9 @@ public class ParameterService {
         if (parameterRepository.existsByCode(parameter.getCode())) {
             throw new RuntimeException("Parameter code already exists");
         }
-        return parameterRepository.save(parameter);
+        Parameter savedParameter = parameterRepository.save(parameter);
+        parameterRegistry.invalidate();
+        return savedParameter;
     }
 
     /**
@@ -44,13 +48,13 @@ public class ParameterService {
     }
 
     /**
-     * Retrieves a Parameter by its unique code.
+     * Retrieves a Parameter by its unique code from the {@link ParameterRegistry} snapshot.
      *
      * @param code The code of the parameter.
-     * @return The Parameter object, or null if not found.
+     * @return The shared Parameter object (must not be modified), or null if not found.
      */
     public Parameter getParameterByCode(String code) {
-        return parameterRepository.findByCode(code);
+        return parameterRegistry.snapshot().get(code);
     }
 
     /**
@@ -85,7 +89,9 @@ public class ParameterService {
         existingParameter.setCode(parameterDetails.getCode());
         existingParameter.setValue(parameterDetails.getValue()); // Assuming a 'value' field exists in Parameter
 
-        return parameterRepository.save(existingParameter);
+        Parameter savedParameter = parameterRepository.save(existingParameter);
+        parameterRegistry.invalidate();
+        return savedParameter;
     }
 
     /**
@@ -95,6 +101,7 @@ public class ParameterService {
      */
     public void deleteParameter(Long id) {
         parameterRepository.softDeleteById(id);
+        parameterRegistry.invalidate();
     }
 
 }
@@ -0,0 +1,64 @@
+package com.market.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by client (an IP address or a user id), each
+ * holding up to {@code capacity} requests and refilling at {@code refillPerSecond}.
+ * <p>
+ * A bucket is a single {@link AtomicLong}: the time at which it will be full
+ * again (the generic cell rate algorithm, equivalent to a token bucket), updated
+ * by compare-and-set, so no request ever takes a lock. Buckets live in a Caffeine
+ * map, whose reads are lock-free and whose writes lock only one bin. A bucket
+ * idle long enough to have refilled completely carries no state, so it expires
+ * after that long; the key count is also capped so a spray of addresses cannot
+ * grow the map without bound.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Cache<String, AtomicLong> buckets;
+    private final LongSupplier nanoClock;
+
+    public RateLimiter(int capacity, double refillPerSecond, long maxKeys) {
+        this(capacity, refillPerSecond, maxKeys, System::nanoTime);
+    }
+
+    RateLimiter(int capacity, double refillPerSecond, long maxKeys, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / refillPerSecond));
+        this.burstNanos = intervalNanos * Math.max(1, capacity);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(Math.max(burstNanos, 1_000_000_000L)))
+                .build();
+    }
+
+    /**
+     * Takes one token from the key's bucket.
+     *
+     * @return 0 if the request is allowed, otherwise the nanoseconds until a token
+     * is available
+     */
+    public long tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong fullAt = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = fullAt.get();
+            long next = (current - now > 0 ? current : now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
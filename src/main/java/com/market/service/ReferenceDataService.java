@@ -0,0 +1,210 @@
+package com.market.service;
+
+import com.market.model.Category;
+import com.market.model.Town;
+import com.market.model.base.BaseEntity;
+import com.market.repository.CategoryRepository;
+import com.market.repository.TownRepository;
+import com.market.search.TextNormalizer;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable in-memory snapshot of all towns and categories, indexed by id and by
+ * code. Reference data changes rarely, so reads never touch the database: the
+ * snapshot is loaded on first use, dropped after any town or category write
+ * commits, and reloaded whole by the next reader. Readers always see either the
+ * old or the new snapshot, never a mix.
+ * <p>
+ * Entities in the snapshot are detached copies shared by all requests: never
+ * modify them or attach them to a shop; use {@link TownService#getTownReference}
+ * and {@link CategoryService#getCategoryReference} for associations.
+ */
+@Service
+public class ReferenceDataService {
+
+    private static final Set<String> SORTABLE = Set.of("id", "name", "code");
+
+    private final TownRepository townRepository;
+    private final CategoryRepository categoryRepository;
+    private final AtomicLong loads = new AtomicLong();
+    private final long epoch = System.currentTimeMillis();
+    private final SnapshotHolder<Snapshot> snapshot = new SnapshotHolder<>(this::load);
+
+    public ReferenceDataService(TownRepository townRepository, CategoryRepository categoryRepository) {
+        this.townRepository = townRepository;
+        this.categoryRepository = categoryRepository;
+    }
+
+    public Snapshot snapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Strong ETag for the current snapshot, quoted.
+     */
+    public String etag() {
+        return "\"ref-" + snapshot().version + "\"";
+    }
+
+    /**
+     * Drop the snapshot once the current transaction commits.
+     */
+    public void invalidate() {
+        snapshot.invalidate();
+    }
+
+    /**
+     * @return Null when the sort is on a property the snapshot cannot order by;
+     * callers then fall back to the database
+     */
+    public static <T extends BaseEntity> Page<T> page(List<T> all, Predicate<T> filter, Pageable pageable,
+                                                      Function<T, String> name, Function<T, String> code) {
+        Comparator<T> order = Comparator.comparing(BaseEntity::getId);
+        if (pageable.getSort().isSorted()) {
+            order = null;
+            for (Sort.Order sortOrder : pageable.getSort()) {
+                if (!SORTABLE.contains(sortOrder.getProperty())) {
+                    return null;
+                }
+                Comparator<T> next = comparator(sortOrder.getProperty(), name, code);
+                next = sortOrder.isDescending() ? next.reversed() : next;
+                order = order == null ? next : order.thenComparing(next);
+            }
+        }
+
+        List<T> matches = all.stream().filter(filter).sorted(order).collect(Collectors.toList());
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(matches, pageable, matches.size());
+        }
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return new PageImpl<>(matches.subList(from, to), pageable, matches.size());
+    }
+
+    private static <T extends BaseEntity> Comparator<T> comparator(String property, Function<T, String> name,
+                                                                   Function<T, String> code) {
+        switch (property) {
+            case "name":
+                return Comparator.comparing(name, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "code":
+                return Comparator.comparing(code, Comparator.nullsFirst(Comparator.naturalOrder()));
+            default:
+                return Comparator.comparing(BaseEntity::getId);
+        }
+    }
+
+    private Snapshot load() {
+        List<Town> towns = townRepository.findAll(Sort.by("id")).stream()
+                .map(ReferenceDataService::copy)
+                .collect(Collectors.toList());
+        List<Category> categories = categoryRepository.findAll(Sort.by("id")).stream()
+                .map(ReferenceDataService::copy)
+                .collect(Collectors.toList());
+        return new Snapshot(epoch + "." + loads.incrementAndGet(), towns, categories);
+    }
+
+    // Copies, so the snapshot never shares instances with a request's persistence context
+
+    private static Town copy(Town town) {
+        Town copy = new Town();
+        copy.setId(town.getId());
+        copy.setName(town.getName());
+        copy.setCode(town.getCode());
+        copy.setDeleted(town.getDeleted());
+        copy.setCreatedAt(town.getCreatedAt());
+        copy.setUpdatedAt(town.getUpdatedAt());
+        return copy;
+    }
+
+    private static Category copy(Category category) {
+        Category copy = new Category();
+        copy.setId(category.getId());
+        copy.setName(category.getName());
+        copy.setCode(category.getCode());
+        copy.setImageKey(category.getImageKey());
+        copy.setDeleted(category.getDeleted());
+        copy.setCreatedAt(category.getCreatedAt());
+        copy.setUpdatedAt(category.getUpdatedAt());
+        return copy;
+    }
+
+    public static final class Snapshot {
+        private final String version;
+        private final List<Town> towns;
+        private final Map<Long, Town> townsById = new HashMap<>();
+        private final Map<String, Town> townsByCode = new HashMap<>();
+        private final Map<Long, String> townNames = new HashMap<>();
+        private final List<Category> categories;
+        private final Map<Long, Category> categoriesById = new HashMap<>();
+        private final Map<String, Category> categoriesByCode = new HashMap<>();
+        private final Map<Long, String> categoryNames = new HashMap<>();
+
+        private Snapshot(String version, List<Town> towns, List<Category> categories) {
+            this.version = version;
+            this.towns = Collections.unmodifiableList(towns);
+            this.categories = Collections.unmodifiableList(categories);
+            for (Town town : towns) {
+                townsById.put(town.getId(), town);
+                townsByCode.put(town.getCode(), town);
+                townNames.put(town.getId(), TextNormalizer.normalize(town.getName()));
+            }
+            for (Category category : categories) {
+                categoriesById.put(category.getId(), category);
+                categoriesByCode.put(category.getCode(), category);
+                categoryNames.put(category.getId(), TextNormalizer.normalize(category.getName()));
+            }
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public List<Town> getTowns() {
+            return towns;
+        }
+
+        public Town getTown(Long id) {
+            return townsById.get(id);
+        }
+
+        public Town getTownByCode(String code) {
+            return townsByCode.get(code);
+        }
+
+        /**
+         * @return The town name in {@link TextNormalizer} form, for in-memory name search
+         */
+        public String getNormalizedTownName(Long id) {
+            return townNames.get(id);
+        }
+
+        public List<Category> getCategories() {
+            return categories;
+        }
+
+        public Category getCategory(Long id) {
+            return categoriesById.get(id);
+        }
+
+        public Category getCategoryByCode(String code) {
+            return categoriesByCode.get(code);
+        }
+
+        /**
+         * @return The category name in {@link TextNormalizer} form, for in-memory name search
+         */
+        public String getNormalizedCategoryName(Long id) {
+            return categoryNames.get(id);
+        }
+    }
+}
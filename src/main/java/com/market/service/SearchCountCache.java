@@ -0,0 +1,72 @@
+package com.market.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived cache of search totals keyed by the normalized filter set.
+ * Search pages are fetched as Slices (no COUNT query); when a client asks for a
+ * total it is served from here, so scrolling through a result set costs at most
+ * one COUNT per TTL window instead of one per page. Totals are therefore
+ * approximate for up to the TTL after a write.
+ */
+@Service
+public class SearchCountCache {
+
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    public SearchCountCache(@Value("${search.count-cache.ttl-seconds:60}") long ttlSeconds,
+                            @Value("${search.count-cache.max-entries:10000}") int maxEntries) {
+        this.ttlMillis = ttlSeconds * 1000;
+        // Access-ordered LinkedHashMap gives LRU eviction once maxEntries is exceeded
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get the cached total for a key, running the counter on a miss or after expiry.
+     */
+    public long get(String key, LongSupplier counter) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                return entry.total;
+            }
+        }
+
+        // Count outside the lock; concurrent misses on the same key at worst count twice
+        long total = counter.getAsLong();
+        synchronized (entries) {
+            entries.put(key, new Entry(total, now + ttlMillis));
+        }
+        return total;
+    }
+
+    public static String key(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : parts) {
+            key.append(part).append('|');
+        }
+        return key.toString();
+    }
+
+    private static class Entry {
+        private final long total;
+        private final long expiresAt;
+
+        private Entry(long total, long expiresAt) {
+            this.total = total;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.market.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Serialized shop profiles and item pages, stamped with a per-shop version.
+ * <p>
+ * Every write touching a shop bumps its version after commit, so bodies are
+ * keyed by (shop, version, page) and never need to be evicted: entries of old
+ * versions are simply no longer asked for and age out. The version doubles as
+ * a strong ETag. Writes to shared reference data rendered inside shop bodies
+ * (town and category names, owners) bump a shared component instead.
+ * <p>
+ * Versions start from the boot time, so a tag issued before a restart is never
+ * reused for different content.
+ */
+@Service
+public class ShopPageCache {
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, byte[]> bodies;
+    private final SingleFlight<String, byte[]> loads;
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final AtomicLong shared = new AtomicLong();
+    private final AtomicLong anyShop = new AtomicLong();
+    private final long epoch = System.currentTimeMillis();
+
+    public ShopPageCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                         @Value("${shop.page-cache.max-bytes:67108864}") long maxBytes,
+                         @Value("${shop.page-cache.idle-minutes:30}") long idleMinutes) {
+        this.objectMapper = objectMapper;
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<String, byte[]>weigher((key, body) -> body.length)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, bodies, "shop-pages");
+        this.loads = new SingleFlight<>("shop-pages", meterRegistry);
+    }
+
+    /**
+     * Strong ETag for the current state of the shop, quoted.
+     */
+    public String etag(Long shopId) {
+        return "\"" + shopId + "-" + version(shopId) + "\"";
+    }
+
+    /**
+     * @param etag Tag from {@link #etag}, read before the body so a concurrent write
+     *             can only make the cached body newer than its tag, never older
+     * @param part Identifies the representation within the shop, e.g. profile or a page
+     * @param body Loads the object to serialize on a miss; concurrent misses for the
+     *             same body share one load, and only bytes cross threads
+     */
+    public byte[] body(String etag, String part, Supplier<Object> body) {
+        String key = etag + "|" + part;
+        byte[] cached = bodies.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        return loads.execute(key, () -> {
+            // A flight that finished just before this one started may have filled it
+            byte[] filled = bodies.asMap().get(key);
+            if (filled != null) {
+                return filled;
+            }
+            byte[] serialized = serialize(body.get());
+            bodies.put(key, serialized);
+            return serialized;
+        });
+    }
+
+    /**
+     * Move the shop to a new version once the current transaction commits.
+     */
+    public void bump(Long shopId) {
+        AfterCommit.run(() -> {
+            versions.computeIfAbsent(shopId, id -> new AtomicLong()).incrementAndGet();
+            anyShop.incrementAndGet();
+        });
+    }
+
+    /**
+     * Move every shop to a new version once the current transaction commits.
+     */
+    public void bumpAll() {
+        AfterCommit.run(shared::incrementAndGet);
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize shop page: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Current version of the shop, unquoted; for validators of other resources that render shop data.
+     */
+    public String version(Long shopId) {
+        AtomicLong version = versions.get(shopId);
+        return epoch + "." + shared.get() + "." + (version == null ? 0 : version.get());
+    }
+
+    /**
+     * Version that moves with every shop's, unquoted; for validators of listings across all shops.
+     */
+    public String version() {
+        return epoch + "." + shared.get() + "." + anyShop.get();
+    }
+}
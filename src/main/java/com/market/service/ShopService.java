@@ -1,16 +1,28 @@
 package com.market.service;
 
+import com.market.dto.CursorPage;
 import com.market.exception.ShopLimitExceededException;
 import com.market.model.Shop;
 import com.market.model.Category;
 import com.market.model.Town;
 import com.market.model.User;
+import com.market.projection.VersionStamp;
 import com.market.repository.ShopRepository;
+import com.market.search.KeysetCursor;
+import com.market.search.SuggestionType;
+import com.market.search.TextNormalizer;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ShopService {
@@ -20,14 +32,27 @@ public class ShopService {
     private final TownService townService;
     private final UserService userService;
     private final FileStorageService fileStorageService;
+    private final CatalogIndexService catalogIndexService;
+    private final SearchCountCache searchCountCache;
+    private final SuggestionService suggestionService;
+    private final ItemSearchCache itemSearchCache;
+    private final ShopPageCache shopPageCache;
 
     public ShopService(ShopRepository shopRepository, CategoryService categoryService,
-                       TownService townService, UserService userService, FileStorageService fileStorageService) {
+                       TownService townService, UserService userService, FileStorageService fileStorageService,
+                       CatalogIndexService catalogIndexService, SearchCountCache searchCountCache,
+                       SuggestionService suggestionService, ItemSearchCache itemSearchCache,
+                       ShopPageCache shopPageCache) {
         this.shopRepository = shopRepository;
         this.categoryService = categoryService;
         this.townService = townService;
         this.userService = userService;
         this.fileStorageService = fileStorageService;
+        this.catalogIndexService = catalogIndexService;
+        this.searchCountCache = searchCountCache;
+        this.suggestionService = suggestionService;
+        this.itemSearchCache = itemSearchCache;
+        this.shopPageCache = shopPageCache;
     }
 
     public Shop createShop(Shop shop) {
@@ -38,12 +63,12 @@ public class ShopService {
         }
 
         if (shop.getCategory() != null && shop.getCategory().getId() != null) {
-            Category category = categoryService.getCategoryById(shop.getCategory().getId());
+            Category category = categoryService.getCategoryReference(shop.getCategory().getId());
             shop.setCategory(category);
         }
 
         if (shop.getTown() != null && shop.getTown().getId() != null) {
-            Town town = townService.getTownById(shop.getTown().getId());
+            Town town = townService.getTownReference(shop.getTown().getId());
             shop.setTown(town);
         }
         // Check shop limit constraint
@@ -54,7 +79,13 @@ public class ShopService {
             throw new RuntimeException("Shop name already exists for this owner");
         }
 
-        return shopRepository.save(shop);
+        Shop savedShop = shopRepository.save(shop);
+        catalogIndexService.refreshShop(savedShop.getId());
+        itemSearchCache.evictShop();
+        shopPageCache.bump(savedShop.getId());
+        // Town and category suggestions are weighted by their live shop counts
+        suggestionService.markDirty(SuggestionType.SHOP, SuggestionType.TOWN, SuggestionType.CATEGORY);
+        return savedShop;
     }
 
     public Shop getShopById(Long id) {
@@ -83,16 +114,32 @@ public class ShopService {
         return shopRepository.findByTownId(townId);
     }
 
-    public Page<Shop> getShopsByTown(Long townId, Pageable pageable) {
-        return shopRepository.findByTownId(townId, pageable);
+    /**
+     * @param withTotal When false, returns a Slice and skips counting entirely;
+     *                  when true, the total comes from {@link SearchCountCache}
+     */
+    public Slice<Shop> getShopsByTown(Long townId, Pageable pageable, boolean withTotal) {
+        Slice<Shop> slice = shopRepository.findByTownId(townId, pageable);
+        if (!withTotal) {
+            return slice;
+        }
+        long total = searchCountCache.get(SearchCountCache.key("shops-by-town", townId),
+                () -> shopRepository.countByTownId(townId));
+        return new PageImpl<>(slice.getContent(), pageable, total);
     }
 
     public List<Shop> getShopsByCategory(Long categoryId) {
         return shopRepository.findByCategoryId(categoryId);
     }
 
-    public Page<Shop> getShopsByCategory(Long categoryId, Pageable pageable) {
-        return shopRepository.findByCategoryId(categoryId, pageable);
+    public Slice<Shop> getShopsByCategory(Long categoryId, Pageable pageable, boolean withTotal) {
+        Slice<Shop> slice = shopRepository.findByCategoryId(categoryId, pageable);
+        if (!withTotal) {
+            return slice;
+        }
+        long total = searchCountCache.get(SearchCountCache.key("shops-by-category", categoryId),
+                () -> shopRepository.countByCategoryId(categoryId));
+        return new PageImpl<>(slice.getContent(), pageable, total);
     }
 
     public Shop updateShop(Long id, Shop shopDetails) {
@@ -113,21 +160,31 @@ public class ShopService {
 
         // Update category if provided
         if (shopDetails.getCategory() != null && shopDetails.getCategory().getId() != null) {
-            Category category = categoryService.getCategoryById(shopDetails.getCategory().getId());
+            Category category = categoryService.getCategoryReference(shopDetails.getCategory().getId());
             shop.setCategory(category);
         }
 
         // Update town if provided
         if (shopDetails.getTown() != null && shopDetails.getTown().getId() != null) {
-            Town town = townService.getTownById(shopDetails.getTown().getId());
+            Town town = townService.getTownReference(shopDetails.getTown().getId());
             shop.setTown(town);
         }
 
-        return shopRepository.save(shop);
+        Shop savedShop = shopRepository.save(shop);
+        // Activation, category and town changes all alter which items are live and how they are filtered
+        catalogIndexService.refreshShop(id);
+        itemSearchCache.evictShop();
+        shopPageCache.bump(id);
+        suggestionService.markDirty(SuggestionType.SHOP, SuggestionType.TOWN, SuggestionType.CATEGORY);
+        return savedShop;
     }
 
     public void deleteShop(Long id) {
         shopRepository.softDeleteById(id);
+        catalogIndexService.refreshShop(id);
+        itemSearchCache.evictShop();
+        shopPageCache.bump(id);
+        suggestionService.markDirty(SuggestionType.SHOP, SuggestionType.TOWN, SuggestionType.CATEGORY);
     }
 
     public boolean isShopOwner(Long shopId, Long userId) {
@@ -160,7 +217,78 @@ public class ShopService {
         return shopRepository.countByOwnerId(userId);
     }
 
-    public Page<Shop> getActiveShopsByCategoryAndTown(Long townId, Long categoryId, Pageable pageable) {
-        return shopRepository.findByCategoryIdAndTownIdAndIsActiveTrue(townId, categoryId, pageable);
+    public Slice<Shop> getActiveShopsByCategoryAndTown(Long townId, Long categoryId, Pageable pageable, boolean withTotal) {
+        Slice<Shop> slice = shopRepository.findByCategoryIdAndTownIdAndIsActiveTrue(categoryId, townId, pageable);
+        if (!withTotal) {
+            return slice;
+        }
+        long total = searchCountCache.get(SearchCountCache.key("active-shops-by-category-and-town", townId, categoryId),
+                () -> shopRepository.countByCategoryIdAndTownIdAndIsActiveTrue(categoryId, townId));
+        return new PageImpl<>(slice.getContent(), pageable, total);
+    }
+
+    // Validators for conditional GET on the shop listings. The unfiltered listing uses
+    // the in-process version across all shops; the others one aggregate query each,
+    // scoped like the listing they stand for
+
+    public VersionStamp getAllShopsVersion() {
+        return VersionStamp.of(shopPageCache.version());
+    }
+
+    public VersionStamp getShopsByOwnerVersion(Long ownerId) {
+        return shopRepository.findVersionStampByOwnerId(ownerId);
+    }
+
+    public VersionStamp getShopsByTownVersion(Long townId) {
+        return shopRepository.findVersionStampByTownId(townId);
+    }
+
+    public VersionStamp getShopsByCategoryVersion(Long categoryId) {
+        return shopRepository.findVersionStampByCategoryId(categoryId);
+    }
+
+    public VersionStamp getActiveShopsByCategoryAndTownVersion(Long townId, Long categoryId) {
+        return shopRepository.findVersionStampByCategoryIdAndTownId(categoryId, townId);
+    }
+
+    /**
+     * Typo-tolerant shop name search over the catalog trigram index, best match
+     * first. Falls back to a substring match while the index is loading.
+     */
+    public List<Shop> searchShopsFuzzy(String name, int size) {
+        if (!catalogIndexService.isReady()) {
+            return shopRepository.findByNameNormalizedContainingAndIsActiveTrueAndDeletedFalse(
+                    TextNormalizer.normalize(name), PageRequest.of(0, size));
+        }
+        List<Long> ids = catalogIndexService.searchShopNames(name, size);
+        Map<Long, Shop> byId = shopRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Shop::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    // Keyset (seek) pagination: cost per window is independent of scroll depth
+
+    public CursorPage<Shop> scrollShopsByTown(Long townId, String cursor, int size) {
+        List<Shop> rows = shopRepository.findByTownIdAndIdGreaterThanOrderByIdAsc(townId, afterId(cursor), PageRequest.of(0, size + 1));
+        return CursorPage.of(rows, size, shop -> new KeysetCursor(null, shop.getId()));
+    }
+
+    public CursorPage<Shop> scrollShopsByCategory(Long categoryId, String cursor, int size) {
+        List<Shop> rows = shopRepository.findByCategoryIdAndIdGreaterThanOrderByIdAsc(categoryId, afterId(cursor), PageRequest.of(0, size + 1));
+        return CursorPage.of(rows, size, shop -> new KeysetCursor(null, shop.getId()));
+    }
+
+    public CursorPage<Shop> scrollActiveShopsByCategoryAndTown(Long townId, Long categoryId, String cursor, int size) {
+        List<Shop> rows = shopRepository.findByCategoryIdAndTownIdAndIsActiveTrueAndIdGreaterThanOrderByIdAsc(
+                categoryId, townId, afterId(cursor), PageRequest.of(0, size + 1));
+        return CursorPage.of(rows, size, shop -> new KeysetCursor(null, shop.getId()));
+    }
+
+    private Long afterId(String cursor) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        return position == null ? 0L : position.getId();
     }
 }
@@ -0,0 +1,52 @@
+package com.market.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * One immutable snapshot, loaded whole on first use, dropped after a write
+ * commits and reloaded whole by the next reader. Readers always see either the
+ * old or the new snapshot, never a mix.
+ * <p>
+ * Loads are serialized, so a burst of readers after a drop costs one load. A load
+ * that overlaps a drop may miss the write that caused it: it is served to its
+ * caller but not kept, so the next reader loads again.
+ */
+public class SnapshotHolder<T> {
+
+    private final Supplier<T> loader;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private volatile T snapshot;
+
+    public SnapshotHolder(Supplier<T> loader) {
+        this.loader = loader;
+    }
+
+    public T get() {
+        T current = snapshot;
+        return current != null ? current : load();
+    }
+
+    /**
+     * Drop the snapshot once the current transaction commits.
+     */
+    public void invalidate() {
+        AfterCommit.run(() -> {
+            invalidations.incrementAndGet();
+            snapshot = null;
+        });
+    }
+
+    private synchronized T load() {
+        if (snapshot != null) {
+            return snapshot;
+        }
+        long observed = invalidations.get();
+        T loaded = loader.get();
+        if (invalidations.get() == observed) {
+            snapshot = loaded;
+        }
+        return loaded;
+    }
+}
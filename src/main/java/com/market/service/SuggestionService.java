@@ -0,0 +1,136 @@
+package com.market.service;
+
+import com.market.repository.CategoryRepository;
+import com.market.repository.ItemRepository;
+import com.market.repository.ShopRepository;
+import com.market.repository.TownRepository;
+import com.market.search.Suggestion;
+import com.market.search.SuggestionTrie;
+import com.market.search.SuggestionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Autocomplete for towns, categories, shops and item names. One immutable
+ * {@link SuggestionTrie} per type is built from the database and swapped in
+ * whole, so lookups never lock or touch the database.
+ * <p>
+ * Writes only mark a type dirty; dirty types are rebuilt together on the next
+ * refresh tick, so a burst of edits costs one rebuild. Every type is also rebuilt
+ * periodically to pick up popularity drift.
+ */
+@Service
+public class SuggestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestionService.class);
+
+    private final TownRepository townRepository;
+    private final CategoryRepository categoryRepository;
+    private final ShopRepository shopRepository;
+    private final ItemRepository itemRepository;
+    private final int topK;
+    private final int maxTerms;
+
+    private volatile Map<SuggestionType, SuggestionTrie> tries = new EnumMap<>(SuggestionType.class);
+    private final Set<SuggestionType> dirty = ConcurrentHashMap.newKeySet();
+
+    public SuggestionService(TownRepository townRepository, CategoryRepository categoryRepository,
+                             ShopRepository shopRepository, ItemRepository itemRepository,
+                             @Value("${search.suggest.top-k:10}") int topK,
+                             @Value("${search.suggest.max-terms:200000}") int maxTerms) {
+        this.townRepository = townRepository;
+        this.categoryRepository = categoryRepository;
+        this.shopRepository = shopRepository;
+        this.itemRepository = itemRepository;
+        this.topK = topK;
+        this.maxTerms = maxTerms;
+    }
+
+    /**
+     * @param type   Entity type to suggest
+     * @param prefix Raw user input
+     * @param limit  Maximum number of suggestions, capped at search.suggest.top-k
+     * @return Entries whose name starts with the prefix, most popular first
+     */
+    public List<Suggestion> suggest(SuggestionType type, String prefix, Integer limit) {
+        SuggestionTrie trie = tries.get(type);
+        if (trie == null) {
+            // Not built yet (startup still running): build this type on demand
+            rebuild(EnumSet.of(type));
+            trie = tries.get(type);
+        }
+        int size = limit == null || limit <= 0 ? topK : Math.min(limit, topK);
+        return trie.suggest(prefix, size);
+    }
+
+    /**
+     * Schedule a rebuild of the given types once the current transaction commits.
+     */
+    public void markDirty(SuggestionType... types) {
+        AfterCommit.run(() -> dirty.addAll(Arrays.asList(types)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAll() {
+        dirty.clear();
+        rebuild(EnumSet.allOf(SuggestionType.class));
+    }
+
+    @Scheduled(fixedDelayString = "${search.suggest.refresh-delay-ms:30000}",
+            initialDelayString = "${search.suggest.refresh-delay-ms:30000}")
+    public void rebuildDirty() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        EnumSet<SuggestionType> types = EnumSet.noneOf(SuggestionType.class);
+        for (SuggestionType type : SuggestionType.values()) {
+            if (dirty.remove(type)) {
+                types.add(type);
+            }
+        }
+        rebuild(types);
+    }
+
+    @Scheduled(fixedDelayString = "${search.suggest.full-refresh-ms:3600000}",
+            initialDelayString = "${search.suggest.full-refresh-ms:3600000}")
+    public void scheduledRebuildAll() {
+        rebuildAll();
+    }
+
+    private synchronized void rebuild(Set<SuggestionType> types) {
+        Map<SuggestionType, SuggestionTrie> next = new EnumMap<>(SuggestionType.class);
+        next.putAll(tries);
+        for (SuggestionType type : types) {
+            long start = System.currentTimeMillis();
+            SuggestionTrie trie = SuggestionTrie.build(load(type), topK);
+            next.put(type, trie);
+            logger.info("Suggestion trie for {} built with {} entries in {} ms",
+                    type, trie.size(), System.currentTimeMillis() - start);
+        }
+        tries = next;
+    }
+
+    private List<Suggestion> load(SuggestionType type) {
+        Pageable limit = PageRequest.of(0, maxTerms);
+        switch (type) {
+            case TOWN:
+                return townRepository.findSuggestions(limit);
+            case CATEGORY:
+                return categoryRepository.findSuggestions(limit);
+            case SHOP:
+                return shopRepository.findSuggestions(limit);
+            default:
+                return itemRepository.findSuggestions(limit);
+        }
+    }
+}
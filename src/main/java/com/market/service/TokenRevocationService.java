@@ -0,0 +1,101 @@
+package com.market.service;
+
+import com.market.model.RevokedToken;
+import com.market.repository.RevokedTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Denylist of JWTs revoked before their expiry, persisted in _revoked_tokens and
+ * fronted by an in-memory {@link BloomFilter} of their ids. The filter answers
+ * "not revoked" for almost every token without touching the database; only
+ * filter hits (revoked tokens and rare false positives) are confirmed with an
+ * exact lookup.
+ * <p>
+ * The filter is rebuilt on a schedule from the unexpired rows, after pruning the
+ * expired ones, so it never fills up. Revocations on this instance apply at once;
+ * those made on other instances are picked up at the next rebuild.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final int expectedTokens;
+    private final double falsePositiveRate;
+    // Revoked here since the last rebuild started, so that rebuild cannot drop them
+    private final Map<String, Long> recent = new ConcurrentHashMap<>();
+    private final Object swapLock = new Object();
+
+    private volatile BloomFilter filter;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  @Value("${auth.revocation.expected-tokens:100000}") int expectedTokens,
+                                  @Value("${auth.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedTokens, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * Revokes the token until it expires. Revoking twice is harmless.
+     */
+    public void revoke(String jti, Date expiresAt) {
+        if (!revokedTokenRepository.existsByJti(jti)) {
+            revokedTokenRepository.save(new RevokedToken(jti, expiresAt));
+        }
+        synchronized (swapLock) {
+            recent.put(jti, System.nanoTime());
+            filter.add(jti);
+        }
+    }
+
+    /**
+     * @param jti Null for tokens issued without an id, which cannot be revoked
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        return revokedTokenRepository.existsByJti(jti);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.refresh-ms:60000}",
+            initialDelayString = "${auth.revocation.refresh-ms:60000}")
+    public void rebuild() {
+        long started = System.nanoTime();
+        Date now = new Date();
+        int pruned = revokedTokenRepository.deleteExpired(now);
+        List<String> jtis = revokedTokenRepository.findActiveJtis(now);
+
+        // Sized for growth, so revocations until the next rebuild keep the rate
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedTokens, jtis.size() * 2), falsePositiveRate);
+        jtis.forEach(rebuilt::add);
+        synchronized (swapLock) {
+            // Saved before the query above, so included in it; later ones are carried over
+            recent.values().removeIf(revokedAt -> revokedAt < started);
+            recent.keySet().forEach(rebuilt::add);
+            filter = rebuilt;
+        }
+        if (pruned > 0) {
+            logger.debug("Revocation filter rebuilt with {} tokens, {} expired pruned", jtis.size(), pruned);
+        }
+    }
+}
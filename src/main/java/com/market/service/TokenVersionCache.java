@@ -0,0 +1,55 @@
+package com.market.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.market.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Current token version per user, checked against the version claimed by each
+ * JWT. A user's version is read from the database once per TTL, so steady-state
+ * authenticated requests run no user query; writes on this instance that revoke
+ * tokens evict the entry after commit, other instances catch up within the TTL.
+ * <p>
+ * Published as the "token-versions" cache metrics.
+ */
+@Service
+public class TokenVersionCache {
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Long> versions;
+
+    public TokenVersionCache(UserRepository userRepository, MeterRegistry meterRegistry,
+                             @Value("${auth.token-version-cache.max-entries:100000}") long maxEntries,
+                             @Value("${auth.token-version-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "token-versions");
+    }
+
+    /**
+     * @return False if the user no longer exists or the token was issued before the
+     * user's latest revocation
+     */
+    public boolean isCurrent(Long userId, long tokenVersion) {
+        // A missing user maps to null, which Caffeine does not cache
+        Long current = versions.get(userId, id -> userRepository.findTokenVersionById(id).orElse(null));
+        return current != null && current == tokenVersion;
+    }
+
+    /**
+     * Forget the user's version once the current transaction commits.
+     */
+    public void evict(Long userId) {
+        AfterCommit.run(() -> versions.invalidate(userId));
+    }
+}
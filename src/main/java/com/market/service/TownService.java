@@ -2,6 +2,8 @@ package com.market.service;
 
 import com.market.model.Town;
 import com.market.repository.TownRepository;
+import com.market.search.SuggestionType;
+import com.market.search.TextNormalizer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -10,9 +12,16 @@ import org.springframework.stereotype.Service;
 public class TownService {
 
     private final TownRepository townRepository;
+    private final SuggestionService suggestionService;
+    private final ShopPageCache shopPageCache;
+    private final ReferenceDataService referenceDataService;
 
-    TownService(TownRepository townRepository) {
+    TownService(TownRepository townRepository, SuggestionService suggestionService, ShopPageCache shopPageCache,
+                ReferenceDataService referenceDataService) {
         this.townRepository = townRepository;
+        this.suggestionService = suggestionService;
+        this.shopPageCache = shopPageCache;
+        this.referenceDataService = referenceDataService;
     }
 
     public Town createTown(Town town) {
@@ -22,20 +31,51 @@ public class TownService {
         if (townRepository.existsByCode(town.getCode())) {
             throw new RuntimeException("Town code already exists");
         }
-        return townRepository.save(town);
+        Town savedTown = townRepository.save(town);
+        referenceDataService.invalidate();
+        suggestionService.markDirty(SuggestionType.TOWN);
+        return savedTown;
     }
 
+    /**
+     * Managed entity, for updates. Read-only callers should use {@link #getTown}.
+     */
     public Town getTownById(Long id) {
         return townRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Town not found"));
     }
 
+    /**
+     * Served from the reference snapshot; the result is shared and must not be modified.
+     */
+    public Town getTown(Long id) {
+        Town town = referenceDataService.snapshot().getTown(id);
+        if (town == null) {
+            throw new RuntimeException("Town not found");
+        }
+        return town;
+    }
+
+    /**
+     * Reference for associating a town with another entity, e.g. a shop, without loading it.
+     * Existence is checked against the reference snapshot.
+     */
+    public Town getTownReference(Long id) {
+        getTown(id);
+        return townRepository.getReferenceById(id);
+    }
+
+    /**
+     * Served from the reference snapshot; the result is shared and must not be modified.
+     */
     public Town getTownByCode(String code) {
-        return townRepository.findByCode(code);
+        return referenceDataService.snapshot().getTownByCode(code);
     }
 
     public Page<Town> getAllTowns(Pageable pageable) {
-        return townRepository.findAll(pageable);
+        Page<Town> page = ReferenceDataService.page(referenceDataService.snapshot().getTowns(), town -> true,
+                pageable, Town::getName, Town::getCode);
+        return page != null ? page : townRepository.findAll(pageable);
     }
 
     public Town updateTown(Long id, Town townDetails) {
@@ -56,14 +96,44 @@ public class TownService {
 
         town.setName(townDetails.getName());
         town.setCode(townDetails.getCode());
-        return townRepository.save(town);
+        Town savedTown = townRepository.save(town);
+        referenceDataService.invalidate();
+        suggestionService.markDirty(SuggestionType.TOWN);
+        // Town names are rendered inside shop profiles
+        shopPageCache.bumpAll();
+        return savedTown;
     }
 
     public void deleteTown(Long id) {
         townRepository.softDeleteById(id);
+        referenceDataService.invalidate();
+        suggestionService.markDirty(SuggestionType.TOWN);
+        shopPageCache.bumpAll();
     }
 
+    /**
+     * Case- and accent-insensitive substring search over the reference snapshot,
+     * or over name_normalized when the sort is not supported in memory.
+     */
     public Page<Town> getTownByContainingName(String name, Pageable pageable) {
-        return townRepository.findByContainName(name, pageable);
+        String normalized = TextNormalizer.normalize(name);
+        ReferenceDataService.Snapshot snapshot = referenceDataService.snapshot();
+        Page<Town> page = ReferenceDataService.page(snapshot.getTowns(),
+                town -> snapshot.getNormalizedTownName(town.getId()).contains(normalized),
+                pageable, Town::getName, Town::getCode);
+        return page != null ? page : townRepository.findByContainName(normalized, pageable);
+    }
+
+    /**
+     * Case- and accent-insensitive prefix search over the reference snapshot,
+     * or over the index on name_normalized when the sort is not supported in memory.
+     */
+    public Page<Town> getTownsByNamePrefix(String prefix, Pageable pageable) {
+        String normalized = TextNormalizer.normalize(prefix);
+        ReferenceDataService.Snapshot snapshot = referenceDataService.snapshot();
+        Page<Town> page = ReferenceDataService.page(snapshot.getTowns(),
+                town -> snapshot.getNormalizedTownName(town.getId()).startsWith(normalized),
+                pageable, Town::getName, Town::getCode);
+        return page != null ? page : townRepository.findByNameNormalizedStartingWith(normalized, pageable);
     }
 }
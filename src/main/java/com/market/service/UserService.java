@@ -5,18 +5,22 @@ import com.market.repository.UserRepository;
 import com.market.exception.UserAlreadyExistsException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final ShopPageCache shopPageCache;
+    private final TokenVersionCache tokenVersionCache;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
-        this.passwordEncoder = passwordEncoder;
+    public UserService(UserRepository userRepository, PasswordHashingService passwordHashingService,
+                       ShopPageCache shopPageCache, TokenVersionCache tokenVersionCache) {
+        this.passwordHashingService = passwordHashingService;
         this.userRepository = userRepository;
+        this.shopPageCache = shopPageCache;
+        this.tokenVersionCache = tokenVersionCache;
     }
 
     public User createUser(User user) {
@@ -27,7 +31,7 @@ public class UserService {
             throw new UserAlreadyExistsException("phone", user.getPhone());
         }
 
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
         return userRepository.save(user);
     }
 
@@ -42,6 +46,10 @@ public class UserService {
 
     public void deleteUser(Long id) {
         userRepository.softDeleteById(id);
+        // The soft delete also bumped the token version
+        tokenVersionCache.evict(id);
+        // Owners are rendered inside shop profiles
+        shopPageCache.bumpAll();
     }
 
     public Page<User> searchUsers(String phone, String username, Pageable pageable) {
@@ -0,0 +1,50 @@
+package com.market.setup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the FULLTEXT index used by the fulltext search mode.
+ * Hibernate's ddl-auto cannot declare FULLTEXT indexes and MySQL has no
+ * "CREATE ... IF NOT EXISTS" for them, so the index is checked and created here.
+ * The ngram parser tokenizes Arabic and Latin text alike.
+ */
+@Component
+public class FullTextIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(FullTextIndexInitializer.class);
+
+    public static final String ITEMS_FULLTEXT_INDEX = "ft_items_name_description";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FullTextIndexInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createItemsFullTextIndex() {
+        try {
+            Integer existing = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.statistics " +
+                            "WHERE table_schema = DATABASE() AND table_name = '_items' AND index_name = ?",
+                    Integer.class, ITEMS_FULLTEXT_INDEX);
+
+            if (existing != null && existing > 0) {
+                logger.debug("FULLTEXT index {} already exists", ITEMS_FULLTEXT_INDEX);
+                return;
+            }
+
+            logger.info("Creating FULLTEXT index {} on _items(name, description)", ITEMS_FULLTEXT_INDEX);
+            jdbcTemplate.execute("ALTER TABLE _items ADD FULLTEXT INDEX " + ITEMS_FULLTEXT_INDEX +
+                    " (name, description) WITH PARSER ngram");
+        } catch (Exception e) {
+            // Fulltext mode fails per request until the index exists; the rest of the app is unaffected
+            logger.error("Failed to create FULLTEXT index {}", ITEMS_FULLTEXT_INDEX, e);
+        }
+    }
+}
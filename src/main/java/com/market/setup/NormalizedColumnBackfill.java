@@ -0,0 +1,106 @@
+package com.market.setup;
+
+import com.market.search.TextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills the *_normalized search columns for rows written before they existed.
+ * New and updated rows get them from the entity setters; this only touches rows
+ * where the column is still NULL, so it is a no-op once the backfill is done.
+ * <p>
+ * Runs in id-ordered batches over plain JDBC: each batch is one short UPDATE
+ * statement batch, and entity lifecycle callbacks (updatedAt) are not triggered.
+ */
+@Component
+public class NormalizedColumnBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(NormalizedColumnBackfill.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public NormalizedColumnBackfill(JdbcTemplate jdbcTemplate,
+                                    @Value("${search.normalized-backfill.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            backfillItems();
+            backfillNames("_shops");
+            backfillNames("_towns");
+            backfillNames("_categories");
+        } catch (Exception e) {
+            // Searches still work on backfilled rows; the remainder is retried on the next start
+            logger.error("Failed to backfill normalized search columns", e);
+        }
+    }
+
+    private void backfillItems() {
+        long lastId = 0;
+        long updated = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT id, name, description FROM _items WHERE name_normalized IS NULL AND id > ? ORDER BY id LIMIT ?",
+                    lastId, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            List<Object[]> args = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                String description = (String) row.get("description");
+                args.add(new Object[]{
+                        TextNormalizer.forColumn((String) row.get("name")),
+                        description == null ? null : TextNormalizer.normalize(description),
+                        row.get("id")});
+            }
+            jdbcTemplate.batchUpdate("UPDATE _items SET name_normalized = ?, description_normalized = ? WHERE id = ?", args);
+
+            updated += rows.size();
+            lastId = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+        }
+        logBackfill("_items", updated);
+    }
+
+    private void backfillNames(String table) {
+        long lastId = 0;
+        long updated = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT id, name FROM " + table + " WHERE name_normalized IS NULL AND id > ? ORDER BY id LIMIT ?",
+                    lastId, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            List<Object[]> args = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                args.add(new Object[]{TextNormalizer.forColumn((String) row.get("name")), row.get("id")});
+            }
+            jdbcTemplate.batchUpdate("UPDATE " + table + " SET name_normalized = ? WHERE id = ?", args);
+
+            updated += rows.size();
+            lastId = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+        }
+        logBackfill(table, updated);
+    }
+
+    private void logBackfill(String table, long updated) {
+        if (updated > 0) {
+            logger.info("Backfilled normalized search columns for {} rows of {}", updated, table);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.market.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.market.model.Category;
+import com.market.model.Item;
+import com.market.model.Shop;
+import com.market.model.Town;
+import com.market.model.User;
+import com.market.service.JsonFragmentCache;
+import com.market.service.ShopPageCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.converter.json.SpringHandlerInstantiator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering a page of items or shops with the current serializers, once as they
+ * run without a {@link JsonFragmentCache} (every entity serialized field by
+ * field, shop working hours parsed from their JSON columns) and once with warm
+ * fragments spliced in as raw UTF-8. A cold page costs the plain render plus one
+ * copy per entity and is not measured separately.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonFragmentCacheBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private AnnotationConfigApplicationContext context;
+    private ObjectMapper plain;
+    private ObjectMapper fragments;
+    private List<Item> items;
+    private List<Shop> shops;
+
+    @Setup
+    public void setUp() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ShopPageCache shopPageCache = new ShopPageCache(new ObjectMapper(), meterRegistry, 64L << 20, 30);
+        JsonFragmentCache jsonFragmentCache = new JsonFragmentCache(meterRegistry, 32L << 20, 60);
+
+        // Serializers are autowired the way Spring's Jackson configuration does it
+        context = new AnnotationConfigApplicationContext();
+        context.getBeanFactory().registerSingleton("jsonFragmentCache", jsonFragmentCache);
+        context.getBeanFactory().registerSingleton("shopPageCache", shopPageCache);
+        context.refresh();
+
+        plain = new ObjectMapper();
+        fragments = new ObjectMapper();
+        fragments.setHandlerInstantiator(new SpringHandlerInstantiator(context.getAutowireCapableBeanFactory()));
+
+        items = new ArrayList<>(pageSize);
+        shops = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            Shop shop = shop(id);
+            shops.add(shop);
+            items.add(item(id, shop));
+        }
+        // Fill the fragments, so the measured path is the steady-state hit, and check
+        // that splicing them yields the very bytes a plain render does
+        fragments.writeValueAsBytes(items);
+        fragments.writeValueAsBytes(shops);
+        if (!Arrays.equals(plain.writeValueAsBytes(items), fragments.writeValueAsBytes(items))
+                || !Arrays.equals(plain.writeValueAsBytes(shops), fragments.writeValueAsBytes(shops))) {
+            throw new IllegalStateException("Fragments differ from the plain rendering");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] itemsPlain() throws Exception {
+        return plain.writeValueAsBytes(items);
+    }
+
+    @Benchmark
+    public byte[] itemsFromFragments() throws Exception {
+        return fragments.writeValueAsBytes(items);
+    }
+
+    @Benchmark
+    public byte[] shopsPlain() throws Exception {
+        return plain.writeValueAsBytes(shops);
+    }
+
+    @Benchmark
+    public byte[] shopsFromFragments() throws Exception {
+        return fragments.writeValueAsBytes(shops);
+    }
+
+    private static Shop shop(long id) {
+        Category category = new Category();
+        category.setId(id % 7);
+        category.setName("Category " + id % 7);
+        Town town = new Town();
+        town.setId(id % 5);
+        town.setName("Town " + id % 5);
+        User owner = new User();
+        owner.setId(id);
+        owner.setUsername("owner" + id);
+        owner.setPhone("05000000" + id);
+
+        Shop shop = new Shop();
+        shop.setId(id);
+        shop.setName("Shop " + id);
+        shop.setDescription("Fresh produce, household goods and a small bakery corner");
+        shop.setAddress("Main street " + id);
+        shop.setPhone("0599" + id);
+        shop.setImageKey("shops/" + id + "/cover.jpg");
+        shop.setCategory(category);
+        shop.setTown(town);
+        shop.setOwner(owner);
+        shop.setItems(List.of());
+        shop.setWorkingDays("{\"from\":\"saturday\",\"to\":\"thursday\"}");
+        shop.setWorkingHours("{\"from\":\"08:00\",\"to\":\"22:00\"}");
+        shop.setCreatedAt(new Date(1_700_000_000_000L));
+        shop.setUpdatedAt(new Date(1_700_000_000_000L + id));
+        return shop;
+    }
+
+    private static Item item(long id, Shop shop) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName("Item " + id);
+        item.setDescription("A description long enough to look like a real listing, with a few details");
+        item.setPrice(id * 1.25);
+        item.setCurrencyType("ILS");
+        item.setImageKeys("items/" + id + "/1.jpg,items/" + id + "/2.jpg");
+        item.setShop(shop);
+        item.setCreatedAt(new Date(1_700_000_000_000L));
+        item.setUpdatedAt(new Date(1_700_000_000_000L + id));
+        return item;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JsonFragmentCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package com.market.benchmark;
+
+import com.market.search.CatalogIndex;
+import com.market.search.IdPage;
+import com.market.search.ItemDocument;
+import com.market.search.PriceIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price-sorted paging over the catalog index at 1M items: the full range walk
+ * filtered by the match bitmap against {@link CatalogIndex#pageByPrice}, which
+ * sorts the matches instead when they are few. "selective" is one category out
+ * of 500, "broad" one town out of 3. Only the in-memory side is measured; the
+ * SQL path needs a MySQL instance with the same catalog loaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceIndexBenchmark {
+
+    private static final int ITEMS = 1_000_000;
+
+    @Param({"selective", "broad"})
+    public String filter;
+
+    private CatalogIndex catalog;
+    private PriceIndex prices;
+    private RoaringBitmap matches;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        List<ItemDocument> documents = new ArrayList<>(ITEMS);
+        long[] ids = new long[ITEMS];
+        double[] values = new double[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            long id = i + 1;
+            double price = random.nextInt(100_000) / 100.0;
+            documents.add(new ItemDocument(id, null, null, price, id % 5_000, id % 500, id % 3));
+            ids[i] = id;
+            values[i] = price;
+        }
+        catalog = new CatalogIndex();
+        catalog.putAll(documents);
+        prices = new PriceIndex();
+        prices.addAll(ids, values, ITEMS);
+        matches = "selective".equals(filter)
+                ? catalog.filter(null, null, null, null, 7L, null)
+                : catalog.filter(null, null, null, null, null, 1L);
+    }
+
+    @Benchmark
+    public IdPage walkPriceRange() {
+        return prices.page(null, null, false, 0, 20, matches::contains, matches.getLongCardinality());
+    }
+
+    @Benchmark
+    public IdPage pageByPrice() {
+        return catalog.pageByPrice(matches, null, null, false, 0, 20);
+    }
+
+    @Benchmark
+    public int countRange() {
+        return prices.count(100.0, 200.0);
+    }
+
+    @Benchmark
+    public PriceIndex bulkLoad() {
+        Random random = new Random(2);
+        long[] ids = new long[ITEMS];
+        double[] values = new double[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            ids[i] = i + 1;
+            values[i] = random.nextInt(100_000) / 100.0;
+        }
+        PriceIndex index = new PriceIndex();
+        index.addAll(ids, values, ITEMS);
+        return index;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PriceIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
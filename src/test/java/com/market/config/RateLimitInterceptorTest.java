@@ -0,0 +1,77 @@
+package com.market.config;
+
+import com.market.exception.RateLimitExceededException;
+import com.market.model.User;
+import com.market.service.JwtService;
+import com.market.service.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitInterceptorTest {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtService jwtService = new JwtService(SECRET, 86_400_000L, 1_000, meterRegistry);
+    // Two requests per bucket, and no refill within the test
+    private final RateLimitInterceptor interceptor = new RateLimitInterceptor("search",
+            new RateLimiter(2, 0.001, 1_000), null, jwtService, meterRegistry);
+
+    private int nextAddress = 1;
+
+    @Test
+    void everyTokenOfAUserDrawsOnOneBucket() {
+        String first = jwtService.generateToken(user(42L));
+        String second = jwtService.generateToken(user(42L));
+        assertThat(first).isNotEqualTo(second);
+
+        assertThat(handle(first)).isTrue();
+        assertThat(handle(second)).isTrue();
+        assertThatThrownBy(() -> handle(first)).isInstanceOf(RateLimitExceededException.class);
+        assertThat(userRejections()).isEqualTo(1);
+
+        // Another user has a bucket of its own
+        assertThat(handle(jwtService.generateToken(user(43L)))).isTrue();
+    }
+
+    @Test
+    void unverifiedTokensGetNoUserBucket() {
+        String token = jwtService.generateToken(user(42L));
+        String forged = token.substring(0, token.lastIndexOf('.') + 1) + "forged";
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(handle(forged)).isTrue();
+            assertThat(handle("not-a-token")).isTrue();
+        }
+        assertThat(userRejections()).isZero();
+    }
+
+    /**
+     * Each request comes from a new address, so only the user bucket can run out.
+     */
+    private boolean handle(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/search/items");
+        request.setRemoteAddr("10.0.0." + nextAddress++);
+        request.addHeader("Authorization", "Bearer " + token);
+        return interceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+    }
+
+    private double userRejections() {
+        return meterRegistry.get("http.ratelimit.rejected").tag("bucket", "user").counter().count();
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setPhone("05990000" + id);
+        user.setUsername("user" + id);
+        user.setTokenVersion(1L);
+        return user;
+    }
+}
@@ -0,0 +1,156 @@
+package com.market.repository;
+
+import com.market.model.Item;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plan-regression test for the advanced item search: EXPLAINs the SQL that
+ * {@link ItemSpecifications} produces for each filter shape against a seeded
+ * MySQL and checks that it is served from the indexes declared on Item and Shop,
+ * with no full table scan. Criteria literals are rendered inline so the captured
+ * SQL can be explained as is.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.market.repository.ItemSearchPlanTest$CapturingInspector",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ItemSearchPlanTest {
+
+    private static final int CATEGORIES = 30;
+    private static final int TOWNS = 20;
+    private static final int SHOPS = 600;
+    private static final int ITEMS = 30_000;
+
+    @Container
+    @ServiceConnection
+    static MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT INTO _users (username, password, phone, shop_limit, token_version, deleted) "
+                + "VALUES ('owner', 'x', '0500000000', 1000, 0, false)");
+        List<Object[]> categories = new ArrayList<>();
+        for (int i = 1; i <= CATEGORIES; i++) {
+            categories.add(new Object[]{i, "category " + i, "c" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO _categories (id, name, code, deleted) VALUES (?, ?, ?, false)", categories);
+        List<Object[]> towns = new ArrayList<>();
+        for (int i = 1; i <= TOWNS; i++) {
+            towns.add(new Object[]{i, "town " + i, "t" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO _towns (id, name, code, deleted) VALUES (?, ?, ?, false)", towns);
+
+        Long ownerId = jdbcTemplate.queryForObject("SELECT id FROM _users", Long.class);
+        List<Object[]> shops = new ArrayList<>();
+        for (int i = 1; i <= SHOPS; i++) {
+            shops.add(new Object[]{i, "shop " + i, "shop " + i, 1 + i % CATEGORIES, 1 + i % TOWNS, ownerId, i % 10 != 0});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO _shops (id, name, name_normalized, category_id, town_id, owner_id, "
+                + "is_active, deleted) VALUES (?, ?, ?, ?, ?, ?, ?, false)", shops);
+
+        Random random = new Random(11);
+        List<Object[]> items = new ArrayList<>();
+        for (int i = 1; i <= ITEMS; i++) {
+            items.add(new Object[]{i, "item " + i, "item " + i, random.nextInt(100_000) / 100.0, 1 + i % SHOPS, i % 25 == 0});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO _items (id, name, name_normalized, price, shop_id, deleted) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", items);
+        jdbcTemplate.execute("ANALYZE TABLE _shops, _items");
+    }
+
+    @Test
+    void categoryFilterUsesTheShopCategoryIndex() {
+        assertIndexed(ItemSpecifications.advancedSearch(null, null, null, null, 3L, null, null),
+                "idx_shops_category_town_active");
+    }
+
+    @Test
+    void categoryAndTownFilterUsesTheShopCategoryIndex() {
+        assertIndexed(ItemSpecifications.advancedSearch(null, null, null, null, 3L, 4L, null),
+                "idx_shops_category_town_active");
+    }
+
+    @Test
+    void townFilterUsesTheShopTownIndex() {
+        assertIndexed(ItemSpecifications.advancedSearch(null, null, null, null, null, 5L, null),
+                "idx_shops_town");
+    }
+
+    @Test
+    void narrowPriceRangeUsesThePriceIndex() {
+        assertIndexed(ItemSpecifications.advancedSearch(null, null, 100.0, 101.0, null, null, null),
+                "idx_items_price");
+    }
+
+    @Test
+    void namePrefixUsesTheNormalizedNameIndex() {
+        Specification<Item> spec = ItemSpecifications.advancedSearch(null, null, null, null, null, null, null)
+                .and(ItemSpecifications.nameStartsWith("item 123"));
+        assertIndexed(spec, "idx_items_name_normalized");
+    }
+
+    private void assertIndexed(Specification<Item> spec, String expectedKey) {
+        CapturingInspector.statements.clear();
+        itemRepository.findIds(spec, Pageable.unpaged());
+        String sql = CapturingInspector.statements.stream()
+                .filter(statement -> statement.contains("_items"))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + sql);
+        List<Object> keys = plan.stream().map(row -> row.get("key")).collect(Collectors.toList());
+        assertThat(keys).as("plan of %s: %s", sql, plan).contains(expectedKey);
+        assertThat(plan).as("plan of %s", sql).noneMatch(row -> "ALL".equals(row.get("type")));
+    }
+
+    /**
+     * Records the SQL Hibernate sends, instantiated by Hibernate from the property above.
+     */
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.market.search;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogIndexTest {
+
+    private static final int ITEMS = 5_000;
+
+    @Test
+    void pageByPriceMatchesASortedScanForSelectiveAndBroadFilters() {
+        Random random = new Random(7);
+        List<ItemDocument> documents = new ArrayList<>();
+        for (long id = 1; id <= ITEMS; id++) {
+            Double price = id % 50 == 0 ? null : (double) random.nextInt(1000);
+            documents.add(new ItemDocument(id, "item " + id, null, price, id % 20, id % 97, id % 3));
+        }
+        CatalogIndex index = new CatalogIndex();
+        index.putAll(documents);
+
+        // A single category is selective enough to sort its matches; a price range alone is walked
+        assertSameAsReference(index, documents, 3L, null, null);
+        assertSameAsReference(index, documents, 3L, 100.0, 800.0);
+        assertSameAsReference(index, documents, null, 100.0, 800.0);
+        assertSameAsReference(index, documents, null, 500.0, 501.0);
+        // No filter at all: walked, and the unpriced items it can never list are not counted
+        assertSameAsReference(index, documents, null, null, null);
+    }
+
+    private static void assertSameAsReference(CatalogIndex index, List<ItemDocument> documents, Long categoryId,
+                                              Double minPrice, Double maxPrice) {
+        RoaringBitmap matches = index.filter(null, null, minPrice, maxPrice, categoryId, null);
+        List<ItemDocument> expected = documents.stream()
+                .filter(d -> matches.contains(d.getId().intValue()) && d.getPrice() != null)
+                .sorted(Comparator.comparing(ItemDocument::getPrice).thenComparing(ItemDocument::getId))
+                .collect(Collectors.toList());
+
+        for (boolean descending : new boolean[]{false, true}) {
+            List<Long> order = expected.stream().map(ItemDocument::getId).collect(Collectors.toList());
+            if (descending) {
+                Collections.reverse(order);
+            }
+            for (int offset : new int[]{0, 20, order.size() - 5}) {
+                int from = Math.min(order.size(), Math.max(0, offset));
+                IdPage page = index.pageByPrice(matches, minPrice, maxPrice, descending, from, 20);
+                assertThat(page.getIds()).isEqualTo(order.subList(from, Math.min(order.size(), from + 20)));
+                assertThat(page.getTotal()).isEqualTo(expected.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.market.search;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvertedIndexTest {
+
+    @Test
+    void queriesWithTheSameNormalizedFormMatchTheSameItems() {
+        // Search results are cached by the normalized query, so every variant must match alike
+        InvertedIndex index = new InvertedIndex();
+        index.add(1, "Caf\u00e9 latte");
+        index.add(2, "CAFE-MOCHA");
+        index.add(3, "\u0625\u0628\u0631\u064a\u0642 \u0634\u0627\u064a");
+        index.add(4, "Tea cup");
+
+        String[] queries = {"cafe", "Caf\u00c9", "caf\u00e9!", "cafe  mocha", "Cafe-Mocha",
+                "\u0627\u0628\u0631\u064a\u0642", "\u0623\u0628\u0631\u064a\u0642", "tea", "TEA."};
+        for (String query : queries) {
+            assertThat(index.match(query)).as(query).isEqualTo(index.match(TextNormalizer.normalize(query)));
+        }
+
+        assertThat(index.match("Caf\u00c9")).isEqualTo(RoaringBitmap.bitmapOf(1, 2));
+        assertThat(index.match("cafe mocha")).isEqualTo(RoaringBitmap.bitmapOf(2));
+        assertThat(index.match("\u0623\u0628\u0631\u064a\u0642")).isEqualTo(RoaringBitmap.bitmapOf(3));
+        assertThat(index.match("?!")).isNull();
+    }
+
+    @Test
+    void removeForgetsTheTokensOfTheGivenText() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1, "Red apple");
+        index.add(2, "red pear");
+
+        index.remove(1, "RED Apple");
+        assertThat(index.match("red")).isEqualTo(RoaringBitmap.bitmapOf(2));
+        assertThat(index.match("app").isEmpty()).isTrue();
+        assertThat(index.tokenCount()).isEqualTo(2);
+    }
+}
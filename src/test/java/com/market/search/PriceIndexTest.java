@@ -0,0 +1,98 @@
+package com.market.search;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceIndexTest {
+
+    @Test
+    void bulkLoadSortsByPriceThenId() {
+        Random random = new Random(42);
+        int n = 10_000;
+        long[] ids = new long[n];
+        double[] prices = new double[n];
+        List<long[]> reference = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ids[i] = i + 1;
+            // Few distinct prices, so ties on price are ordered by id
+            prices[i] = random.nextInt(100);
+            reference.add(new long[]{(long) prices[i], ids[i]});
+        }
+        PriceIndex index = new PriceIndex();
+        index.addAll(ids, prices, n);
+
+        List<Long> expected = reference.stream()
+                .sorted(Comparator.<long[]>comparingLong(e -> e[0]).thenComparingLong(e -> e[1]))
+                .map(e -> e[1])
+                .collect(Collectors.toList());
+        assertThat(index.size()).isEqualTo(n);
+        assertThat(index.page(null, null, false, 0, n, id -> true, -1).getIds()).isEqualTo(expected);
+    }
+
+    @Test
+    void countAndRangeIncludeBothBounds() {
+        PriceIndex index = new PriceIndex();
+        index.add(1, 10.0);
+        index.add(2, 20.0);
+        index.add(3, 20.0);
+        index.add(4, 30.0);
+
+        assertThat(index.count(20.0, 20.0)).isEqualTo(2);
+        assertThat(index.count(10.0, 30.0)).isEqualTo(4);
+        assertThat(index.count(null, 15.0)).isEqualTo(1);
+        assertThat(index.count(25.0, null)).isEqualTo(1);
+        assertThat(index.count(null, null)).isEqualTo(4);
+        assertThat(index.count(31.0, null)).isZero();
+        assertThat(index.count(30.0, 10.0)).isZero();
+        assertThat(index.range(15.0, 30.0)).isEqualTo(RoaringBitmap.bitmapOf(2, 3, 4));
+    }
+
+    @Test
+    void singleWritesKeepTheOrder() {
+        PriceIndex index = new PriceIndex();
+        index.add(5, 50.0);
+        index.add(1, 10.0);
+        index.add(3, 30.0);
+        index.add(3, 30.0);
+        index.add(2, 30.0);
+
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(ids(index, false)).containsExactly(1L, 2L, 3L, 5L);
+
+        index.remove(3, 30.0);
+        // Removing with a stale price is a no-op
+        index.remove(5, 10.0);
+        assertThat(ids(index, false)).containsExactly(1L, 2L, 5L);
+        assertThat(ids(index, true)).containsExactly(5L, 2L, 1L);
+    }
+
+    @Test
+    void pageSkipsRejectedIdsAndCountsTheAcceptedOnes() {
+        PriceIndex index = new PriceIndex();
+        for (int id = 1; id <= 10; id++) {
+            index.add(id, id * 10.0);
+        }
+
+        IdPage page = index.page(20.0, 90.0, false, 1, 2, id -> id % 2 == 0, -1);
+        assertThat(page.getIds()).containsExactly(4L, 6L);
+        assertThat(page.getTotal()).isEqualTo(4);
+
+        IdPage descending = index.page(20.0, 90.0, true, 0, 3, id -> id % 2 == 0, 4);
+        assertThat(descending.getIds()).containsExactly(8L, 6L, 4L);
+        assertThat(descending.getTotal()).isEqualTo(4);
+
+        assertThat(index.page(20.0, 90.0, false, 10, 2, id -> true, -1).getIds()).isEmpty();
+    }
+
+    private static List<Long> ids(PriceIndex index, boolean descending) {
+        return index.page(null, null, descending, 0, index.size(), id -> true, -1).getIds();
+    }
+}
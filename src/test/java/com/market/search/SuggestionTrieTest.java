@@ -0,0 +1,87 @@
+package com.market.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionTrieTest {
+
+    private static final int TOP_K = 5;
+
+    @Test
+    void topKMatchesAScanAcrossRebuildsWithInsertsAndRemovals() {
+        // The trie is immutable; writes reach it through a rebuild from the changed entry set
+        Random random = new Random(13);
+        List<Suggestion> entries = new ArrayList<>();
+        for (int id = 0; id < 2_000; id++) {
+            entries.add(new Suggestion((long) id, randomLabel(random), (long) id * 7 % 2_003));
+        }
+        assertSameAsScan(entries, random);
+
+        for (int id = 2_000; id < 2_300; id++) {
+            entries.add(new Suggestion((long) id, randomLabel(random), 3_000L + id));
+        }
+        assertSameAsScan(entries, random);
+
+        entries.removeIf(suggestion -> suggestion.getId() % 3 == 0);
+        assertSameAsScan(entries, random);
+    }
+
+    @Test
+    void normalizesLabelsAndPrefixes() {
+        SuggestionTrie trie = SuggestionTrie.build(List.of(
+                new Suggestion(1L, "Caf\u00e9 Central", 5L),
+                new Suggestion(2L, "cafeteria", 9L),
+                new Suggestion(3L, "Bakery", 1L),
+                new Suggestion(4L, "   ", 100L)), TOP_K);
+
+        assertThat(trie.size()).isEqualTo(3);
+        assertThat(ids(trie.suggest("CAFE", 10))).containsExactly(2L, 1L);
+        assertThat(ids(trie.suggest("caf\u00e9 c", 10))).containsExactly(1L);
+        assertThat(ids(trie.suggest("", 1))).containsExactly(2L);
+        assertThat(trie.suggest("cafx", 10)).isEmpty();
+        assertThat(SuggestionTrie.build(List.of(), TOP_K).suggest("a", 10)).isEmpty();
+    }
+
+    private static void assertSameAsScan(List<Suggestion> entries, Random random) {
+        SuggestionTrie trie = SuggestionTrie.build(entries, TOP_K);
+        assertThat(trie.size()).isEqualTo(entries.size());
+
+        List<String> prefixes = new ArrayList<>(List.of("", "a", "zz"));
+        for (int n = 0; n < 300; n++) {
+            String label = entries.get(random.nextInt(entries.size())).getLabel();
+            prefixes.add(label.substring(0, random.nextInt(label.length() + 1)));
+        }
+        for (String prefix : prefixes) {
+            List<Long> expected = entries.stream()
+                    .filter(suggestion -> suggestion.getLabel().startsWith(prefix))
+                    .sorted(Comparator.comparingLong(Suggestion::getWeight).reversed())
+                    .limit(TOP_K)
+                    .map(Suggestion::getId)
+                    .collect(Collectors.toList());
+            assertThat(ids(trie.suggest(prefix, TOP_K))).as("prefix '%s'", prefix).isEqualTo(expected);
+        }
+    }
+
+    private static List<Long> ids(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Lower-case labels over a small alphabet, so prefixes are widely shared.
+     */
+    private static String randomLabel(Random random) {
+        StringBuilder label = new StringBuilder();
+        int length = 1 + random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            label.append("abcd".charAt(random.nextInt(4)));
+        }
+        return label.toString();
+    }
+}
@@ -0,0 +1,114 @@
+package com.market.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTest {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    @Test
+    void boundedLevenshteinAgreesWithTheFullDistanceUpToTheBound() {
+        Random random = new Random(3);
+        for (int n = 0; n < 5_000; n++) {
+            String a = randomWord(random, random.nextInt(9));
+            String b = random.nextBoolean() ? edit(random, a, random.nextInt(4)) : randomWord(random, random.nextInt(9));
+            int max = random.nextInt(4);
+            int expected = levenshtein(a, b);
+
+            assertThat(TrigramIndex.boundedLevenshtein(a, b, max))
+                    .as("%s / %s within %d", a, b, max)
+                    .isEqualTo(Math.min(expected, max + 1));
+        }
+    }
+
+    @Test
+    void findsEveryNameWithinTheEditBudget() {
+        // The q-gram bound prunes candidates; a name k edits away must never be pruned
+        Random random = new Random(5);
+        TrigramIndex index = new TrigramIndex();
+        String[] names = new String[2_000];
+        for (int id = 0; id < names.length; id++) {
+            names[id] = randomWord(random, 4 + random.nextInt(8)) + " " + randomWord(random, 3 + random.nextInt(5));
+            index.add(id, names[id]);
+        }
+
+        for (int n = 0; n < 500; n++) {
+            int id = random.nextInt(names.length);
+            String word = names[id].split(" ")[0];
+            int budget = word.length() <= 3 ? 0 : word.length() <= 6 ? 1 : 2;
+            String query = edit(random, word, budget);
+            if (query.length() <= 3 || (query.length() <= 6) != (word.length() <= 6)) {
+                // The budget follows the query length; skip edits that move it across a threshold
+                continue;
+            }
+
+            assertThat(index.search(query, names.length)).as("%s for %s", query, names[id]).contains((long) id);
+        }
+    }
+
+    @Test
+    void ranksCloserAndShorterNamesFirstAndForgetsRemovedOnes() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(1, "iPhone 15 Pro");
+        index.add(2, "iPhone");
+        index.add(3, "Phone case");
+        index.add(4, "Samsung Galaxy");
+
+        assertThat(index.search("iphome", 10)).containsExactly(2L, 1L);
+        assertThat(index.search("IPHONE", 10).get(0)).isEqualTo(2L);
+        assertThat(index.search("galaxi", 10)).containsExactly(4L);
+
+        index.remove(2);
+        assertThat(index.search("iphone", 10)).containsExactly(1L, 3L);
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.search("   ", 10)).isEmpty();
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return word.toString();
+    }
+
+    /**
+     * Apply up to {@code edits} random substitutions, insertions or deletions.
+     */
+    private static String edit(Random random, String word, int edits) {
+        StringBuilder result = new StringBuilder(word);
+        for (int e = 0; e < edits; e++) {
+            char letter = LETTERS.charAt(random.nextInt(LETTERS.length()));
+            int operation = result.length() == 0 ? 1 : random.nextInt(3);
+            if (operation == 0) {
+                result.setCharAt(random.nextInt(result.length()), letter);
+            } else if (operation == 1) {
+                result.insert(random.nextInt(result.length() + 1), letter);
+            } else {
+                result.deleteCharAt(random.nextInt(result.length()));
+            }
+        }
+        return result.toString();
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
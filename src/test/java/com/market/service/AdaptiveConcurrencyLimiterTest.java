@@ -0,0 +1,79 @@
+package com.market.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(meterRegistry, 20, 4, 100, 1.5);
+
+    @Test
+    void shedsRequestsOverTheLimit() {
+        for (int i = 0; i < 20; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(meterRegistry.get("http.concurrency.rejected").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("http.concurrency.inflight").gauge().value()).isEqualTo(20);
+
+        limiter.release(System.nanoTime() - FAST);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsWhileLatencyHoldsAndShrinksWhenItRises() {
+        runAtLimit(FAST, 50);
+        assertThat(limit()).isEqualTo(100);
+
+        runAtLimit(SLOW, 10);
+        double shrunk = limit();
+        assertThat(shrunk).isLessThan(50);
+
+        // Never below the floor, however slow it gets
+        runAtLimit(SLOW * 10, 20);
+        assertThat(limit()).isGreaterThanOrEqualTo(4).isLessThanOrEqualTo(shrunk);
+    }
+
+    @Test
+    void ignoresSamplesWhileMostOfTheLimitIsUnused() {
+        limiter.release(acquired() - FAST);
+        // One request at a time says nothing about the limit, however slow it is
+        for (int i = 0; i < 100; i++) {
+            limiter.release(acquired() - SLOW * 10);
+        }
+        assertThat(limit()).isEqualTo(20);
+    }
+
+    /**
+     * Fill the limit, then complete every request with the given latency, for the given number of rounds.
+     */
+    private void runAtLimit(long rttNanos, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int admitted = 0;
+            while (limiter.tryAcquire()) {
+                admitted++;
+            }
+            for (int i = 0; i < admitted; i++) {
+                limiter.release(System.nanoTime() - rttNanos);
+            }
+        }
+    }
+
+    private long acquired() {
+        assertThat(limiter.tryAcquire()).isTrue();
+        return System.nanoTime();
+    }
+
+    private double limit() {
+        return meterRegistry.get("http.concurrency.limit").gauge().value();
+    }
+}
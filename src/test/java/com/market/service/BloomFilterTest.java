@@ -0,0 +1,81 @@
+package com.market.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void neverMissesAnAddedValueAndStaysNearTheTargetRate() {
+        for (double target : new double[]{0.01, 0.001}) {
+            int n = 20_000;
+            BloomFilter filter = new BloomFilter(n, target);
+            Random random = new Random(17);
+            List<String> added = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                String value = new UUID(random.nextLong(), random.nextLong()).toString();
+                added.add(value);
+                filter.add(value);
+            }
+
+            assertThat(added).allMatch(filter::mightContain);
+
+            int probes = 200_000;
+            int falsePositives = 0;
+            for (int i = 0; i < probes; i++) {
+                if (filter.mightContain("absent-" + i)) {
+                    falsePositives++;
+                }
+            }
+            double rate = (double) falsePositives / probes;
+            assertThat(rate).as("false positive rate for target %s", target).isLessThan(target * 1.5);
+        }
+    }
+
+    @Test
+    void concurrentAddsAreAllVisible() throws Exception {
+        BloomFilter filter = new BloomFilter(40_000, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        filter.add(thread + ":" + i);
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int t = 0; t < 4; t++) {
+            for (int i = 0; i < 10_000; i++) {
+                assertThat(filter.mightContain(t + ":" + i)).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void anEmptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(0, 0.01);
+        assertThat(filter.mightContain("")).isFalse();
+        assertThat(filter.mightContain("anything")).isFalse();
+
+        filter.add("");
+        assertThat(filter.mightContain("")).isTrue();
+    }
+}
@@ -0,0 +1,61 @@
+package com.market.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void admitsABurstOfCapacityThenOnePerInterval() {
+        // 5 requests of burst, one more every 100 ms
+        RateLimiter limiter = new RateLimiter(5, 10, 1_000, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("a")).isZero();
+        }
+        long wait = limiter.tryAcquire("a");
+        assertThat(wait).isEqualTo(100 * MILLIS);
+
+        clock.addAndGet(wait - 1);
+        assertThat(limiter.tryAcquire("a")).isEqualTo(1);
+        clock.addAndGet(1);
+        assertThat(limiter.tryAcquire("a")).isZero();
+        assertThat(limiter.tryAcquire("a")).isEqualTo(100 * MILLIS);
+    }
+
+    @Test
+    void refillsToCapacityAndNoFurther() {
+        RateLimiter limiter = new RateLimiter(3, 10, 1_000, clock::get);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("a");
+        }
+
+        // Half a second refills five tokens' worth, but the bucket holds three
+        clock.addAndGet(500 * MILLIS);
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("a")).isZero();
+        }
+        assertThat(limiter.tryAcquire("a")).isPositive();
+
+        // Rejected requests take nothing, so the wait does not grow
+        long wait = limiter.tryAcquire("a");
+        assertThat(limiter.tryAcquire("a")).isEqualTo(wait);
+    }
+
+    @Test
+    void keysHaveTheirOwnBuckets() {
+        RateLimiter limiter = new RateLimiter(1, 1, 1_000, clock::get);
+
+        assertThat(limiter.tryAcquire("ip:10.0.0.1")).isZero();
+        assertThat(limiter.tryAcquire("ip:10.0.0.1")).isPositive();
+        assertThat(limiter.tryAcquire("ip:10.0.0.2")).isZero();
+    }
+}